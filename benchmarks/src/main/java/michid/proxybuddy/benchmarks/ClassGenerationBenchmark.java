@@ -0,0 +1,73 @@
+package michid.proxybuddy.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import michid.proxybuddy.ProxyBuddy;
+import michid.proxybuddy.ProxyClassCache;
+import michid.proxybuddy.ProxyFactory;
+
+/**
+ * Measures the cost of generating and loading a proxy class. The class cache is cleared
+ * before each operation so every operation generates a new class.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class ClassGenerationBenchmark {
+
+    public static class Target {
+        public int m1(int a) {
+            return a;
+        }
+
+        public String m2(String a, String b) {
+            return a + b;
+        }
+
+        public void m3() { }
+    }
+
+    public interface Interface1 {
+        int i1();
+    }
+
+    public interface Interface2 {
+        int i2();
+    }
+
+    @Benchmark
+    public ProxyFactory<Target> generateClass() throws Exception {
+        ProxyClassCache.clear();
+        return new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> null)
+            .buildFactory();
+    }
+
+    @Benchmark
+    public ProxyFactory<Target> generateClassWithInterfaces() throws Exception {
+        ProxyClassCache.clear();
+        return new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> null)
+            .withInterface(Interface1.class)
+            .withInterface(Interface2.class)
+            .buildFactory();
+    }
+
+    @Benchmark
+    public ProxyFactory<Target> cachedClass() throws Exception {
+        return new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> null)
+            .buildFactory();
+    }
+
+}
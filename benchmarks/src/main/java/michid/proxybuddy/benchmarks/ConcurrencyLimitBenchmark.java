@@ -0,0 +1,100 @@
+package michid.proxybuddy.benchmarks;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import michid.proxybuddy.ConcurrencyLimit;
+import michid.proxybuddy.ProxyBuddy;
+
+/**
+ * Compares limiting concurrent calls with {@link ProxyBuddy#withConcurrencyLimit} to a
+ * {@link Semaphore} acquired in the invocation handler, with as many threads as there are
+ * processors calling a shared proxy. The limit is high enough to never be reached such that
+ * the benchmark measures the cost of permit accounting under contention. {@code intercepted}
+ * measures the interceptor chain the concurrency limit runs in.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class ConcurrencyLimitBenchmark {
+
+    public static class Client {
+        public int fetch(int value) {
+            return value;
+        }
+    }
+
+    private Client unlimitedProxy;
+    private Client interceptedProxy;
+    private Client semaphoreProxy;
+    private Client limitedProxy;
+
+    @Setup
+    public void setup() throws Exception {
+        var target = new Client();
+        var limit = 1024;
+
+        unlimitedProxy = new ProxyBuddy<>(Client.class, (proxy, pipe, method, arguments) -> pipe.apply(target))
+            .createProxy();
+
+        interceptedProxy = new ProxyBuddy<>(Client.class, (proxy, pipe, method, arguments) -> pipe.apply(target))
+            .intercept(invocation -> invocation.proceed())
+            .createProxy();
+
+        var semaphore = new Semaphore(limit);
+        semaphoreProxy = new ProxyBuddy<>(Client.class, (proxy, pipe, method, arguments) -> {
+                if (!semaphore.tryAcquire()) {
+                    throw new IllegalStateException();
+                }
+                try {
+                    return pipe.apply(target);
+                } finally {
+                    semaphore.release();
+                }
+            })
+            .createProxy();
+
+        limitedProxy = new ProxyBuddy<>(Client.class, (proxy, pipe, method, arguments) -> pipe.apply(target))
+            .withConcurrencyLimit(named("fetch"), ConcurrencyLimit.of(limit))
+            .createProxy();
+    }
+
+    @Benchmark
+    public int unlimited() {
+        return unlimitedProxy.fetch(1);
+    }
+
+    @Benchmark
+    public int intercepted() {
+        return interceptedProxy.fetch(1);
+    }
+
+    @Benchmark
+    public int semaphore() {
+        return semaphoreProxy.fetch(1);
+    }
+
+    @Benchmark
+    public int concurrencyLimit() {
+        return limitedProxy.fetch(1);
+    }
+
+}
@@ -0,0 +1,93 @@
+package michid.proxybuddy.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import michid.proxybuddy.ProxyBuddy;
+import michid.proxybuddy.ProxyBuddy.SuperCallInvocationHandler;
+
+/**
+ * Compares a direct call with calls through a proxy delegating to its target with
+ * {@link ProxyBuddy#withTarget(Object)}, through a lazy proxy created with
+ * {@link ProxyBuddy#lazy(Class, java.util.function.Supplier)} after its target has been created,
+ * through an invocation handler forwarding
+ * to its target with {@code pipe.apply(target)} and through an invocation handler calling
+ * the super class implementation with {@link ProxyBuddy#withSuperCall()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class DelegationBenchmark {
+
+    public static class Counter {
+        private int count;
+
+        public int add(int value) {
+            return count += value;
+        }
+    }
+
+    private Counter target;
+    private Counter delegatingProxy;
+    private Counter lazyProxy;
+    private Counter pipingProxy;
+    private Counter superCallProxy;
+    private int value;
+
+    @Setup
+    public void setup() throws Exception {
+        target = new Counter();
+        var pipeTarget = new Counter();
+        delegatingProxy = new ProxyBuddy<>(Counter.class, (proxy, pipe, method, arguments) -> null)
+            .withTarget(new Counter())
+            .createProxy();
+        lazyProxy = ProxyBuddy.lazy(Counter.class, Counter::new)
+            .createProxy();
+        lazyProxy.add(0);
+        pipingProxy = new ProxyBuddy<>(Counter.class, (proxy, pipe, method, arguments) -> pipe.apply(pipeTarget))
+            .createProxy();
+        superCallProxy = new ProxyBuddy<>(Counter.class, (SuperCallInvocationHandler<Counter>)
+                (proxy, superCall, method, arguments) -> superCall.call())
+            .withSuperCall()
+            .createProxy();
+    }
+
+    @Benchmark
+    public int direct() {
+        return target.add(value++);
+    }
+
+    @Benchmark
+    public int delegatingProxy() {
+        return delegatingProxy.add(value++);
+    }
+
+    @Benchmark
+    public int lazyProxy() {
+        return lazyProxy.add(value++);
+    }
+
+    @Benchmark
+    public int pipingProxy() {
+        return pipingProxy.add(value++);
+    }
+
+    @Benchmark
+    public int superCallProxy() {
+        return superCallProxy.add(value++);
+    }
+
+}
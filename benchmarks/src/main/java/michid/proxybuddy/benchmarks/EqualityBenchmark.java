@@ -0,0 +1,114 @@
+package michid.proxybuddy.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import michid.proxybuddy.ProxyBuddy;
+
+/**
+ * Measures {@code equals} and {@code hashCode} of proxies created with
+ * {@link ProxyBuddy#withProxyNeverEqualsTarget(Object)} and
+ * {@link ProxyBuddy#withProxyCanEqualTarget(Object)}, including their use as keys of a
+ * {@link HashMap}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class EqualityBenchmark {
+
+    public static class Target {
+        private final int value;
+
+        public Target(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other != null && other.getClass() == Target.class && value == ((Target) other).value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value;
+        }
+    }
+
+    private Target target;
+    private Target neverEquals1;
+    private Target neverEquals2;
+    private Target canEqual1;
+    private Target canEqual2;
+    private Map<Target, Target> map;
+
+    @Setup
+    public void setup() throws Exception {
+        target = new Target(1);
+        neverEquals1 = createProxy(new Target(1), true);
+        neverEquals2 = createProxy(new Target(1), true);
+        canEqual1 = createProxy(new Target(1), false);
+        canEqual2 = createProxy(new Target(1), false);
+
+        map = new HashMap<>();
+        for (int k = 0; k < 1000; k++) {
+            var proxy = createProxy(new Target(k), true);
+            map.put(proxy, proxy);
+        }
+        map.put(neverEquals1, neverEquals1);
+    }
+
+    private Target createProxy(Target witness, boolean neverEqualsTarget) throws Exception {
+        var proxyBuddy = new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> pipe.apply(witness))
+            .withConstructor(Target.class.getConstructor(int.class), 0);
+        return (neverEqualsTarget
+                ? proxyBuddy.withProxyNeverEqualsTarget(witness)
+                : proxyBuddy.withProxyCanEqualTarget(witness))
+            .createProxy();
+    }
+
+    @Benchmark
+    public int neverEqualsTargetHashCode() {
+        return neverEquals1.hashCode();
+    }
+
+    @Benchmark
+    public boolean neverEqualsTargetEqualsProxy() {
+        return neverEquals1.equals(neverEquals2);
+    }
+
+    @Benchmark
+    public boolean neverEqualsTargetEqualsTarget() {
+        return neverEquals1.equals(target);
+    }
+
+    @Benchmark
+    public int canEqualTargetHashCode() {
+        return canEqual1.hashCode();
+    }
+
+    @Benchmark
+    public boolean canEqualTargetEqualsProxy() {
+        return canEqual1.equals(canEqual2);
+    }
+
+    @Benchmark
+    public Target hashMapGet() {
+        return map.get(neverEquals2);
+    }
+
+}
@@ -0,0 +1,128 @@
+package michid.proxybuddy.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import michid.proxybuddy.ProxyBuddy;
+import michid.proxybuddy.ProxyBuddy.InvocationHandler;
+import michid.proxybuddy.ProxyFactory;
+
+/**
+ * Measures the cost of creating proxy instances with {@link ProxyBuddy#createProxy()}, which
+ * looks up the cached proxy class on each call, and with a reused {@link ProxyFactory}.
+ * Plain allocation of the proxied class serves as baseline. The batch benchmarks create
+ * {@value #BATCH} proxies per invocation with a loop over {@code createProxy()}, with
+ * {@link ProxyBuddy#createProxies} and with a parallel {@link ProxyBuddy#createProxyStream}
+ * and report the time per proxy. {@code expensiveFactory} and
+ * {@code expensiveFactoryWithoutSuperConstructor} create proxies of a class with an allocating
+ * constructor with and without {@link ProxyBuddy#withoutSuperConstructor()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class InstanceCreationBenchmark {
+    private static final int BATCH = 100_000;
+
+    public static class Target {
+        private final int value;
+
+        public Target(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+    }
+
+    public static class Expensive {
+        private final long[] cache = new long[256];
+
+        public long get(int index) {
+            return cache[index];
+        }
+    }
+
+    private final InvocationHandler<Target> invocationHandler = (proxy, pipe, method, arguments) -> null;
+    private ProxyBuddy<Target> proxyBuddy;
+    private ProxyFactory<Target> factory;
+    private ProxyFactory<Expensive> expensiveFactory;
+    private ProxyFactory<Expensive> expensiveFactoryWithoutSuperConstructor;
+
+    @Setup
+    public void setup() throws Exception {
+        proxyBuddy = new ProxyBuddy<>(Target.class, invocationHandler)
+            .withConstructor(Target.class.getConstructor(int.class), 42);
+        factory = proxyBuddy.buildFactory();
+
+        var expensiveProxyBuddy = new ProxyBuddy<Expensive>(Expensive.class, (proxy, pipe, method, arguments) -> 0L);
+        expensiveFactory = expensiveProxyBuddy.buildFactory();
+        expensiveFactoryWithoutSuperConstructor = expensiveProxyBuddy.withoutSuperConstructor().buildFactory();
+    }
+
+    @Benchmark
+    public Target allocation() {
+        return new Target(42);
+    }
+
+    @Benchmark
+    public Target createProxy() throws Exception {
+        return proxyBuddy.createProxy();
+    }
+
+    @Benchmark
+    public Target factory() throws Exception {
+        return factory.newInstance(invocationHandler);
+    }
+
+    @Benchmark
+    public Expensive expensiveFactory() throws Exception {
+        return expensiveFactory.newInstance((proxy, pipe, method, arguments) -> 0L);
+    }
+
+    @Benchmark
+    public Expensive expensiveFactoryWithoutSuperConstructor() throws Exception {
+        return expensiveFactoryWithoutSuperConstructor.newInstance((proxy, pipe, method, arguments) -> 0L);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Target> createProxyLoop() throws Exception {
+        var proxies = new ArrayList<Target>(BATCH);
+        for (int k = 0; k < BATCH; k++) {
+            proxies.add(proxyBuddy.createProxy());
+        }
+        return proxies;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Target> createProxies() throws Exception {
+        return proxyBuddy.createProxies(BATCH, index -> invocationHandler);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Target[] createProxyStreamParallel() throws Exception {
+        return proxyBuddy.createProxyStream(BATCH, index -> invocationHandler)
+            .parallel()
+            .toArray(Target[]::new);
+    }
+
+}
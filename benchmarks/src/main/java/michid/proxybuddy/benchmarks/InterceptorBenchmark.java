@@ -0,0 +1,93 @@
+package michid.proxybuddy.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import michid.proxybuddy.ProxyBuddy;
+import michid.proxybuddy.ProxyBuddy.InvocationHandler;
+
+/**
+ * Compares calls passing through three counting decorators, once with invocation handlers
+ * wrapping each other and once with {@link ProxyBuddy#intercept(ProxyBuddy.Interceptor[])}.
+ * {@code handler} is the baseline without any decorators. Run with {@code -prof gc} for the
+ * allocation per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class InterceptorBenchmark {
+
+    public static class Target {
+        public int add(int a, int b) {
+            return a + b;
+        }
+    }
+
+    private Target handlerProxy;
+    private Target wrappedProxy;
+    private Target interceptedProxy;
+    private long count;
+    private int value;
+
+    @Setup
+    public void setup() throws Exception {
+        var target = new Target();
+        InvocationHandler<Target> handler = (proxy, pipe, method, arguments) -> pipe.apply(target);
+
+        handlerProxy = new ProxyBuddy<>(Target.class, handler)
+            .createProxy();
+        wrappedProxy = new ProxyBuddy<>(Target.class, counting(counting(counting(handler))))
+            .createProxy();
+        interceptedProxy = new ProxyBuddy<>(Target.class, handler)
+            .intercept(
+                invocation -> {
+                    count++;
+                    return invocation.proceed();
+                },
+                invocation -> {
+                    count++;
+                    return invocation.proceed();
+                },
+                invocation -> {
+                    count++;
+                    return invocation.proceed();
+                })
+            .createProxy();
+    }
+
+    private InvocationHandler<Target> counting(InvocationHandler<Target> handler) {
+        return (proxy, pipe, method, arguments) -> {
+            count++;
+            return handler.invoke(proxy, pipe, method, arguments);
+        };
+    }
+
+    @Benchmark
+    public int handler() {
+        return handlerProxy.add(value++, 1);
+    }
+
+    @Benchmark
+    public int wrappedHandlers() {
+        return wrappedProxy.add(value++, 1);
+    }
+
+    @Benchmark
+    public int interceptors() {
+        return interceptedProxy.add(value++, 1);
+    }
+
+}
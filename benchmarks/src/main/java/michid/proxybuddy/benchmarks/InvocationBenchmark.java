@@ -0,0 +1,107 @@
+package michid.proxybuddy.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import michid.proxybuddy.ProxyBuddy;
+import michid.proxybuddy.ProxyMetrics;
+
+/**
+ * Measures the latency of calls through proxies with the reflecting handler
+ * ({@code method.invoke(target, arguments)}) and the delegating handler
+ * ({@code pipe.apply(target)}) used throughout the tests. Run with {@code -prof gc}
+ * for the allocation per call. {@code meteredAdd} measures the overhead of
+ * {@link ProxyBuddy#withMetrics(ProxyMetrics)} on top of {@code delegatingAdd}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class InvocationBenchmark {
+
+    public static class Target {
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        public String noArgMethod() {
+            return "noArg";
+        }
+
+        public void voidMethod() { }
+    }
+
+    private Target target;
+    private Target reflectingProxy;
+    private Target delegatingProxy;
+    private Target meteredProxy;
+    private int value;
+
+    @Setup
+    public void setup() throws Exception {
+        target = new Target();
+        reflectingProxy = new ProxyBuddy<>(Target.class,
+                (proxy, pipe, method, arguments) -> method.invoke(target, arguments))
+            .createProxy();
+        delegatingProxy = new ProxyBuddy<>(Target.class,
+                (proxy, pipe, method, arguments) -> pipe.apply(target))
+            .createProxy();
+        meteredProxy = new ProxyBuddy<>(Target.class,
+                (proxy, pipe, method, arguments) -> pipe.apply(target))
+            .withMetrics(new ProxyMetrics())
+            .createProxy();
+    }
+
+    @Benchmark
+    public int directAdd() {
+        return target.add(value++, 1);
+    }
+
+    @Benchmark
+    public int reflectingAdd() {
+        return reflectingProxy.add(value++, 1);
+    }
+
+    @Benchmark
+    public int delegatingAdd() {
+        return delegatingProxy.add(value++, 1);
+    }
+
+    @Benchmark
+    public int meteredAdd() {
+        return meteredProxy.add(value++, 1);
+    }
+
+    @Benchmark
+    public String reflectingNoArg() {
+        return reflectingProxy.noArgMethod();
+    }
+
+    @Benchmark
+    public String delegatingNoArg() {
+        return delegatingProxy.noArgMethod();
+    }
+
+    @Benchmark
+    public void reflectingVoid() {
+        reflectingProxy.voidMethod();
+    }
+
+    @Benchmark
+    public void delegatingVoid() {
+        delegatingProxy.voidMethod();
+    }
+
+}
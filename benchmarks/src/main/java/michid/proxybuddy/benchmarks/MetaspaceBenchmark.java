@@ -0,0 +1,74 @@
+package michid.proxybuddy.benchmarks;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+
+import michid.proxybuddy.ProxyBuddy;
+
+/**
+ * Reports Metaspace usage and the number of loaded and unloaded classes while generating many
+ * distinct proxy shapes whose proxies are immediately discarded. Not a JMH benchmark, run with
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar michid.proxybuddy.benchmarks.MetaspaceBenchmark [shapes] [--collectible]
+ * </pre>
+ * Without {@code --collectible} Metaspace grows with the number of shapes. With it, proxy classes
+ * are unloaded once unreachable and Metaspace stays bounded.
+ */
+public class MetaspaceBenchmark {
+
+    public static class Target {
+        public int m() {
+            return 0;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int shapes = 1_000_000;
+        boolean collectible = false;
+        for (var arg : args) {
+            if ("--collectible".equals(arg)) {
+                collectible = true;
+            } else {
+                shapes = Integer.parseInt(arg);
+            }
+        }
+
+        var metaspace = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> "Metaspace".equals(pool.getName()))
+            .findFirst()
+            .orElseThrow();
+
+        System.out.printf("Generating %d shapes, collectible=%b%n", shapes, collectible);
+        report(0, metaspace);
+
+        var start = System.nanoTime();
+        for (int k = 1; k <= shapes; k++) {
+            var proxyBuddy = new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> 0)
+                .onMethod(named("m" + k), (proxy, pipe, method, arguments) -> 1);
+            if (collectible) {
+                proxyBuddy = proxyBuddy.withCollectibleClass();
+            }
+            proxyBuddy.createProxy().m();
+
+            if (k % Math.max(1, shapes / 10) == 0) {
+                report(k, metaspace);
+            }
+        }
+
+        System.gc();
+        report(shapes, metaspace);
+        System.out.printf("%.1f s%n", (System.nanoTime() - start) / 1e9);
+    }
+
+    private static void report(int shapes, MemoryPoolMXBean metaspace) {
+        var classLoading = ManagementFactory.getClassLoadingMXBean();
+        System.out.printf("%10d shapes: metaspace used %6d MB, classes loaded %9d, unloaded %9d%n",
+            shapes,
+            metaspace.getUsage().getUsed() >> 20,
+            classLoading.getTotalLoadedClassCount(),
+            classLoading.getUnloadedClassCount());
+    }
+
+}
@@ -0,0 +1,85 @@
+package michid.proxybuddy.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import michid.proxybuddy.ProxyBuddy;
+
+/**
+ * Compares calls to the methods of a composite proxy implementing several interfaces, once with
+ * an invocation handler looking up the implementation of each interface by the declaring class of
+ * the called method and once with each interface added through
+ * {@link ProxyBuddy#withInterface(Class, Object)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class MixinBenchmark {
+
+    public static class Entity {}
+
+    public interface Identified {
+        long id();
+    }
+
+    public interface Versioned {
+        int version();
+    }
+
+    public interface Tagged {
+        String tag();
+    }
+
+    private Object handlerComposite;
+    private Object mixinComposite;
+
+    @Setup
+    public void setup() throws Exception {
+        Identified identified = () -> 42;
+        Versioned versioned = () -> 3;
+        Tagged tagged = () -> "tag";
+
+        var delegates = Map.of(Identified.class, identified, Versioned.class, versioned, Tagged.class, tagged);
+        handlerComposite = new ProxyBuddy<>(Entity.class, (proxy, pipe, method, arguments) ->
+                method.invoke(delegates.get(method.getDeclaringClass()), arguments))
+            .withInterface(Identified.class)
+            .withInterface(Versioned.class)
+            .withInterface(Tagged.class)
+            .createProxy();
+
+        mixinComposite = new ProxyBuddy<>(Entity.class, (proxy, pipe, method, arguments) -> null)
+            .withInterface(Identified.class, identified)
+            .withInterface(Versioned.class, versioned)
+            .withInterface(Tagged.class, tagged)
+            .createProxy();
+    }
+
+    @Benchmark
+    public long handler() {
+        return ((Identified) handlerComposite).id()
+            + ((Versioned) handlerComposite).version()
+            + ((Tagged) handlerComposite).tag().length();
+    }
+
+    @Benchmark
+    public long mixin() {
+        return ((Identified) mixinComposite).id()
+            + ((Versioned) mixinComposite).version()
+            + ((Tagged) mixinComposite).tag().length();
+    }
+
+}
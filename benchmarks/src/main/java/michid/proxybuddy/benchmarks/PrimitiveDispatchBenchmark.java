@@ -0,0 +1,79 @@
+package michid.proxybuddy.benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import michid.proxybuddy.ProxyBuddy;
+import michid.proxybuddy.ProxyBuddy.PrimitiveInvocationHandler;
+
+/**
+ * Compares the cost of proxied calls with primitive arguments and return values through
+ * {@link ProxyBuddy.InvocationHandler} and through {@link PrimitiveInvocationHandler}.
+ * Run with {@code -prof gc} for comparing the allocation rate of both paths.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class PrimitiveDispatchBenchmark {
+
+    public static class Counter {
+        private int count;
+
+        public int add(int value) {
+            return count += value;
+        }
+    }
+
+    private static class Handler implements PrimitiveInvocationHandler<Counter> {
+        private int count;
+
+        @Override
+        public long invoke(Counter proxy, Method method, long argument0, long argument1) {
+            return count += (int) argument0;
+        }
+
+        @Override
+        public Object invoke(Counter proxy, Function<Counter, Object> pipe, Method method, Object... arguments) {
+            return count += (Integer) arguments[0];
+        }
+    }
+
+    private Counter boxingProxy;
+    private Counter primitiveProxy;
+    private int value;
+
+    @Setup
+    public void setup() throws Exception {
+        boxingProxy = new ProxyBuddy<>(Counter.class, new Handler())
+            .createProxy();
+        primitiveProxy = new ProxyBuddy<>(Counter.class, new Handler())
+            .withPrimitiveDispatch()
+            .createProxy();
+    }
+
+    @Benchmark
+    public int invocationHandler() {
+        return boxingProxy.add(value++);
+    }
+
+    @Benchmark
+    public int primitiveInvocationHandler() {
+        return primitiveProxy.add(value++);
+    }
+
+}
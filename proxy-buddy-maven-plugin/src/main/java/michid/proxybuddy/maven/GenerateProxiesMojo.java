@@ -0,0 +1,139 @@
+package michid.proxybuddy.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import michid.proxybuddy.ProxyBuddy;
+
+/**
+ * Generates proxy classes for the configured {@link Proxy} shapes into the output directory
+ * of the project. At runtime {@code ProxyBuddy} picks up these classes instead of generating
+ * them on first use.
+ * <pre>
+ * &lt;plugin&gt;
+ *     &lt;groupId&gt;michid&lt;/groupId&gt;
+ *     &lt;artifactId&gt;proxy-buddy-maven-plugin&lt;/artifactId&gt;
+ *     &lt;executions&gt;
+ *         &lt;execution&gt;
+ *             &lt;goals&gt;&lt;goal&gt;generate&lt;/goal&gt;&lt;/goals&gt;
+ *             &lt;configuration&gt;
+ *                 &lt;proxies&gt;
+ *                     &lt;proxy&gt;
+ *                         &lt;superClass&gt;com.example.MyClass&lt;/superClass&gt;
+ *                     &lt;/proxy&gt;
+ *                 &lt;/proxies&gt;
+ *             &lt;/configuration&gt;
+ *         &lt;/execution&gt;
+ *     &lt;/executions&gt;
+ * &lt;/plugin&gt;
+ * </pre>
+ * The version of the plugin should match the version of {@code proxy-buddy} the project
+ * depends on. Classes generated by a different version are not picked up at runtime.
+ */
+@Mojo(
+    name = "generate",
+    defaultPhase = LifecyclePhase.PROCESS_CLASSES,
+    requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME,
+    threadSafe = true)
+public class GenerateProxiesMojo extends AbstractMojo {
+
+    /**
+     * Directory to write the generated proxy classes to.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}", required = true)
+    private File outputDirectory;
+
+    /**
+     * Class path for loading the proxied classes.
+     */
+    @Parameter(defaultValue = "${project.runtimeClasspathElements}", readonly = true, required = true)
+    private List<String> classpathElements;
+
+    /**
+     * Shapes of the proxy classes to generate.
+     */
+    @Parameter(required = true)
+    private List<Proxy> proxies;
+
+    /**
+     * Skip generating proxy classes.
+     */
+    @Parameter(property = "proxybuddy.skip", defaultValue = "false")
+    private boolean skip;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Skipping proxy class generation");
+            return;
+        }
+
+        try (var classLoader = new URLClassLoader(toUrls(classpathElements), getClass().getClassLoader())) {
+            for (var proxy : proxies) {
+                var name = generate(proxy, classLoader);
+                getLog().info("Generated proxy class " + name);
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to generate proxy classes", e);
+        }
+    }
+
+    private String generate(Proxy proxy, ClassLoader classLoader) throws MojoExecutionException {
+        try {
+            var superClass = loadClass(proxy.getSuperClass(), classLoader);
+            var proxyBuddy = new ProxyBuddy<>(superClass, (thisProxy, pipe, method, arguments) -> null);
+
+            for (var interfaze : proxy.getInterfaces()) {
+                proxyBuddy = proxyBuddy.withInterface(loadClass(interfaze, classLoader));
+            }
+
+            var parameterTypes = new Class<?>[proxy.getConstructorParameters().size()];
+            for (int k = 0; k < parameterTypes.length; k++) {
+                parameterTypes[k] = loadClass(proxy.getConstructorParameters().get(k), classLoader);
+            }
+            proxyBuddy = proxyBuddy.withConstructor(superClass.getConstructor(parameterTypes));
+
+            return proxyBuddy.saveProxyClass(outputDirectory);
+        } catch (ClassNotFoundException | NoSuchMethodException | IOException | IllegalArgumentException e) {
+            throw new MojoExecutionException("Failed to generate proxy class for " + proxy, e);
+        }
+    }
+
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = Map.of(
+        "boolean", boolean.class,
+        "byte", byte.class,
+        "short", short.class,
+        "char", char.class,
+        "int", int.class,
+        "long", long.class,
+        "float", float.class,
+        "double", double.class);
+
+    @SuppressWarnings("unchecked")
+    private static <T> Class<T> loadClass(String name, ClassLoader classLoader) throws ClassNotFoundException {
+        var primitiveType = PRIMITIVE_TYPES.get(name);
+        return (Class<T>) (primitiveType == null
+            ? Class.forName(name, false, classLoader)
+            : primitiveType);
+    }
+
+    private static URL[] toUrls(List<String> classpathElements) throws MalformedURLException {
+        var urls = new URL[classpathElements.size()];
+        for (int k = 0; k < urls.length; k++) {
+            urls[k] = new File(classpathElements.get(k)).toURI().toURL();
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,45 @@
+package michid.proxybuddy.maven;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shape of a proxy class to generate at build time. Configured as
+ * <pre>
+ * &lt;proxy&gt;
+ *     &lt;superClass&gt;com.example.MyClass&lt;/superClass&gt;
+ *     &lt;interfaces&gt;
+ *         &lt;interface&gt;com.example.Interface1&lt;/interface&gt;
+ *     &lt;/interfaces&gt;
+ *     &lt;constructorParameters&gt;
+ *         &lt;constructorParameter&gt;java.lang.String&lt;/constructorParameter&gt;
+ *         &lt;constructorParameter&gt;int&lt;/constructorParameter&gt;
+ *     &lt;/constructorParameters&gt;
+ * &lt;/proxy&gt;
+ * </pre>
+ * The constructor parameters select the constructor of the super class passed to
+ * {@link michid.proxybuddy.ProxyBuddy#withConstructor}. Without parameters the default
+ * constructor is used.
+ */
+public class Proxy {
+    private String superClass;
+    private List<String> interfaces = new ArrayList<>();
+    private List<String> constructorParameters = new ArrayList<>();
+
+    public String getSuperClass() {
+        return superClass;
+    }
+
+    public List<String> getInterfaces() {
+        return interfaces;
+    }
+
+    public List<String> getConstructorParameters() {
+        return constructorParameters;
+    }
+
+    @Override
+    public String toString() {
+        return superClass + interfaces + constructorParameters;
+    }
+}
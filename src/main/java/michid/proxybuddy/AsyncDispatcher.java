@@ -0,0 +1,87 @@
+package michid.proxybuddy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import michid.proxybuddy.ProxyBuddy.Interceptor;
+import michid.proxybuddy.ProxyBuddy.Invocation;
+
+/**
+ * Interceptor returning a {@link CompletableFuture} immediately and proceeding with the call
+ * on an {@link Executor}. The future completes with the result of the call. If the call returns
+ * a {@link CompletionStage} itself, the future completes with its result instead. Exceptions
+ * thrown by the call complete the future exceptionally.
+ */
+final class AsyncDispatcher<T> implements Interceptor<T> {
+    private final Executor executor;
+
+    AsyncDispatcher(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public Object intercept(Invocation<T> invocation) {
+        var future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> proceed(invocation, future));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private static void proceed(Invocation<?> call, CompletableFuture<Object> future) {
+        try {
+            var result = call.proceed();
+            if (result instanceof CompletionStage<?> stage) {
+                stage.whenComplete((value, exception) -> {
+                    if (exception == null) {
+                        future.complete(value);
+                    } else {
+                        future.completeExceptionally(exception instanceof CompletionException && exception.getCause() != null
+                            ? exception.getCause()
+                            : exception);
+                    }
+                });
+            } else {
+                future.complete(result);
+            }
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Executor starting a new virtual thread per call on runtimes supporting virtual threads
+     * and a {@link Executors#newCachedThreadPool(ThreadFactory) cached thread pool} of daemon
+     * threads otherwise. Calls are expected to block, which would starve the common
+     * {@link java.util.concurrent.ForkJoinPool}.
+     * @return  the default executor for asynchronous dispatch
+     */
+    static Executor defaultExecutor() {
+        return DefaultExecutor.EXECUTOR;
+    }
+
+    private static final class DefaultExecutor {
+        static final Executor EXECUTOR = newDefaultExecutor();
+
+        private static Executor newDefaultExecutor() {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+                var threadCount = new AtomicInteger();
+                return Executors.newCachedThreadPool(runnable -> {
+                    var thread = new Thread(runnable, "ProxyBuddy-async-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package michid.proxybuddy;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thresholds, backpressure and statistics of proxies created with
+ * {@link ProxyBuddy#withBatching(net.bytebuddy.matcher.ElementMatcher, BatchPolicy, ProxyBuddy.BatchHandler)}.
+ * Batched calls are buffered in a bounded queue and flushed to the {@link ProxyBuddy.BatchHandler}
+ * once {@link #maxBatchSize(int) maxBatchSize} calls are buffered or at the latest after
+ * {@link #maxDelay(Duration)}. When the queue is full, the {@link Overflow} policy decides what
+ * happens to further calls.
+ * <pre>
+ * var policy = BatchPolicy.maxBatchSize(100)
+ *     .maxDelay(Duration.ofMillis(5))
+ *     .onOverflow(BatchPolicy.Overflow.DROP);
+ * </pre>
+ */
+public final class BatchPolicy {
+    private static final long DEFAULT_MAX_DELAY_NANOS = Duration.ofMillis(10).toNanos();
+
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final int capacity;
+    private final Overflow overflow;
+    private final Counters counters = new Counters();
+
+    // Weak such that a long lived policy does not keep the batchers of unreachable proxies
+    private final Set<Batcher<?>> batchers = Collections.newSetFromMap(new WeakHashMap<>());
+
+    /**
+     * What happens to calls that find the queue full.
+     */
+    public enum Overflow {
+
+        /**
+         * The caller waits until there is space in the queue.
+         */
+        BLOCK,
+
+        /**
+         * The call is discarded and counted as dropped.
+         */
+        DROP,
+
+        /**
+         * The caller flushes its call to the {@link ProxyBuddy.BatchHandler} as a batch of its
+         * own, after waiting for a flush in progress to complete. Such calls may overtake calls
+         * still in the queue.
+         */
+        CALLER_RUNS
+    }
+
+    private BatchPolicy(int maxBatchSize, long maxDelayNanos, int capacity, Overflow overflow) {
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelayNanos;
+        this.capacity = capacity;
+        this.overflow = overflow;
+    }
+
+    /**
+     * Create a policy flushing batches of at most {@code maxBatchSize} calls after at most 10 ms
+     * with a queue of 16 times {@code maxBatchSize} calls that blocks callers when full.
+     * @param maxBatchSize  maximal number of calls per batch
+     * @return  a new {@code BatchPolicy} instance
+     * @throws IllegalArgumentException  if {@code maxBatchSize} is not positive
+     */
+    public static BatchPolicy maxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Maximum batch size must be positive: " + maxBatchSize);
+        }
+        return new BatchPolicy(maxBatchSize, DEFAULT_MAX_DELAY_NANOS, 16 * maxBatchSize, Overflow.BLOCK);
+    }
+
+    /**
+     * Create a policy flushing calls at the latest after {@code maxDelay}. The returned policy
+     * starts with empty statistics.
+     * @param maxDelay  maximal time calls are buffered
+     * @return  a new {@code BatchPolicy} instance
+     * @throws IllegalArgumentException  if {@code maxDelay} is not positive
+     */
+    public BatchPolicy maxDelay(Duration maxDelay) {
+        if (maxDelay.isNegative() || maxDelay.isZero()) {
+            throw new IllegalArgumentException("Maximum delay must be positive: " + maxDelay);
+        }
+        return new BatchPolicy(maxBatchSize, maxDelay.toNanos(), capacity, overflow);
+    }
+
+    /**
+     * Create a policy buffering up to {@code capacity} calls. The returned policy starts with
+     * empty statistics.
+     * @param capacity  maximal number of buffered calls, rounded up to a power of two
+     * @return  a new {@code BatchPolicy} instance
+     * @throws IllegalArgumentException  if {@code capacity} is less than the maximal batch size
+     */
+    public BatchPolicy capacity(int capacity) {
+        if (capacity < maxBatchSize) {
+            throw new IllegalArgumentException("Capacity must not be less than the maximum batch size: " + capacity);
+        }
+        return new BatchPolicy(maxBatchSize, maxDelayNanos, capacity, overflow);
+    }
+
+    /**
+     * Create a policy handling calls that find the queue full according to {@code overflow}.
+     * The returned policy starts with empty statistics.
+     * @param overflow  backpressure policy
+     * @return  a new {@code BatchPolicy} instance
+     */
+    public BatchPolicy onOverflow(Overflow overflow) {
+        return new BatchPolicy(maxBatchSize, maxDelayNanos, capacity, overflow);
+    }
+
+    int maxBatchSize() {
+        return maxBatchSize;
+    }
+
+    long maxDelayNanos() {
+        return maxDelayNanos;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    Overflow overflow() {
+        return overflow;
+    }
+
+    Counters counters() {
+        return counters;
+    }
+
+    void register(Batcher<?> batcher) {
+        synchronized (batchers) {
+            batchers.add(batcher);
+        }
+    }
+
+    /**
+     * Flush the calls buffered by all proxies using this policy from the calling thread,
+     * e.g. before shutting down.
+     */
+    public void flush() {
+        List<Batcher<?>> registered;
+        synchronized (batchers) {
+            registered = List.copyOf(batchers);
+        }
+        for (var batcher : registered) {
+            batcher.flush();
+        }
+    }
+
+    /**
+     * @return  statistics of the calls batched with this policy
+     */
+    public Stats stats() {
+        return counters.stats();
+    }
+
+    /**
+     * Point in time view of the statistics of a policy. Like those of
+     * {@link ProxyMetrics.Snapshot}, the counters are not guaranteed to be mutually consistent.
+     */
+    public static final class Stats {
+        private final long flushes;
+        private final long flushedCalls;
+        private final long failedFlushes;
+        private final long dropped;
+        private final long callerRuns;
+        private final long totalFlushNanos;
+        private final long maxFlushNanos;
+
+        private Stats(long flushes, long flushedCalls, long failedFlushes, long dropped, long callerRuns,
+                long totalFlushNanos, long maxFlushNanos) {
+            this.flushes = flushes;
+            this.flushedCalls = flushedCalls;
+            this.failedFlushes = failedFlushes;
+            this.dropped = dropped;
+            this.callerRuns = callerRuns;
+            this.totalFlushNanos = totalFlushNanos;
+            this.maxFlushNanos = maxFlushNanos;
+        }
+
+        /**
+         * @return  number of batches passed to the batch handler
+         */
+        public long flushes() {
+            return flushes;
+        }
+
+        /**
+         * @return  number of calls passed to the batch handler
+         */
+        public long flushedCalls() {
+            return flushedCalls;
+        }
+
+        /**
+         * @return  number of batches for which the batch handler threw an exception
+         */
+        public long failedFlushes() {
+            return failedFlushes;
+        }
+
+        /**
+         * @return  number of calls discarded because the queue was full
+         */
+        public long dropped() {
+            return dropped;
+        }
+
+        /**
+         * @return  number of calls flushed by their caller because the queue was full
+         */
+        public long callerRuns() {
+            return callerRuns;
+        }
+
+        /**
+         * @return  mean number of calls per batch or {@code 0} if there were no flushes
+         */
+        public double meanBatchSize() {
+            return flushes == 0
+                ? 0
+                : (double) flushedCalls / flushes;
+        }
+
+        /**
+         * @return  mean time the batch handler took per batch in nanoseconds or {@code 0} if
+         *          there were no flushes
+         */
+        public double meanFlushNanos() {
+            return flushes == 0
+                ? 0
+                : (double) totalFlushNanos / flushes;
+        }
+
+        /**
+         * @return  the longest time the batch handler took for a batch in nanoseconds
+         */
+        public long maxFlushNanos() {
+            return maxFlushNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("flushes=%d flushedCalls=%d failedFlushes=%d dropped=%d callerRuns=%d " +
+                    "meanBatchSize=%.1f meanFlushNanos=%.0f maxFlushNanos=%d",
+                flushes, flushedCalls, failedFlushes, dropped, callerRuns,
+                meanBatchSize(), meanFlushNanos(), maxFlushNanos);
+        }
+    }
+
+    static final class Counters {
+        final LongAdder flushes = new LongAdder();
+        final LongAdder flushedCalls = new LongAdder();
+        final LongAdder failedFlushes = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final LongAdder callerRuns = new LongAdder();
+        final LongAdder totalFlushNanos = new LongAdder();
+        final LongAccumulator maxFlushNanos = new LongAccumulator(Math::max, 0);
+
+        Stats stats() {
+            return new Stats(flushes.sum(), flushedCalls.sum(), failedFlushes.sum(), dropped.sum(), callerRuns.sum(),
+                totalFlushNanos.sum(), maxFlushNanos.get());
+        }
+    }
+}
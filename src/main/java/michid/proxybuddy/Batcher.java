@@ -0,0 +1,201 @@
+package michid.proxybuddy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import michid.proxybuddy.ProxyBuddy.BatchHandler;
+import michid.proxybuddy.ProxyBuddy.Interceptor;
+import michid.proxybuddy.ProxyBuddy.Invocation;
+
+/**
+ * Interceptor buffering calls in a bounded queue and returning immediately. Callers enqueue
+ * without locking. A flusher thread drains the queue into batches for the {@link BatchHandler}
+ * when a batch is full or the maximal delay has passed. The flusher is started on demand and
+ * stops after being idle for a while. {@link #flush()} drains the queue from the calling thread.
+ * The drain lock ensures there is only ever a single consumer of the queue and that the
+ * {@code BatchHandler} is never called concurrently, also not by callers running their own call.
+ */
+final class Batcher<T> implements Interceptor<T> {
+    private static final AtomicInteger FLUSHER_COUNT = new AtomicInteger();
+    private static final long IDLE_NANOS = 1_000_000_000L;
+
+    private final BatchPolicy policy;
+    private final BatchHandler<T> batchHandler;
+    private final BatchPolicy.Counters counters;
+    private final MpscQueue<Invocation<T>> queue;
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Thread flusher;
+
+    Batcher(BatchPolicy policy, BatchHandler<T> batchHandler) {
+        this.policy = policy;
+        this.batchHandler = batchHandler;
+        this.counters = policy.counters();
+        this.queue = new MpscQueue<>(policy.capacity());
+        policy.register(this);
+    }
+
+    @Override
+    public Object intercept(Invocation<T> invocation) throws Exception {
+        if (!queue.offer(invocation)) {
+            switch (policy.overflow()) {
+                case DROP -> {
+                    counters.dropped.increment();
+                    return null;
+                }
+                case CALLER_RUNS -> {
+                    counters.callerRuns.increment();
+                    drainLock.lock();
+                    try {
+                        handle(List.of(invocation));
+                    } finally {
+                        drainLock.unlock();
+                    }
+                    return null;
+                }
+                case BLOCK -> {
+                    while (!queue.offer(invocation)) {
+                        wakeFlusher();
+                        LockSupport.parkNanos(this, 10_000);
+                    }
+                }
+            }
+        }
+
+        if (queue.size() >= policy.maxBatchSize()) {
+            wakeFlusher();
+        } else if (!running.get()) {
+            startFlusher();
+        }
+        return null;
+    }
+
+    private void wakeFlusher() {
+        if (!running.get()) {
+            startFlusher();
+        }
+        LockSupport.unpark(flusher);
+    }
+
+    private void startFlusher() {
+        if (running.compareAndSet(false, true)) {
+            var thread = new Thread(this::runFlusher, "ProxyBuddy-batch-flusher-" + FLUSHER_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            flusher = thread;
+            thread.start();
+        }
+    }
+
+    private void runFlusher() {
+        long idle = 0;
+        while (true) {
+            LockSupport.parkNanos(this, policy.maxDelayNanos());
+            if (flush()) {
+                idle = 0;
+            } else if ((idle += policy.maxDelayNanos()) >= IDLE_NANOS) {
+                // Stop unless a caller enqueued a call after the queue was seen empty but
+                // before the flusher was marked as stopped
+                running.set(false);
+                if (queue.size() == 0 || !running.compareAndSet(false, true)) {
+                    return;
+                }
+                idle = 0;
+            }
+        }
+    }
+
+    /**
+     * Drain the queue into batches.
+     * @return  {@code true} if any calls were flushed
+     */
+    boolean flush() {
+        var flushed = false;
+        drainLock.lock();
+        try {
+            while (queue.size() > 0) {
+                var batch = new ArrayList<Invocation<T>>(Math.min(queue.size(), policy.maxBatchSize()));
+                Invocation<T> call;
+                while (batch.size() < policy.maxBatchSize() && (call = queue.poll()) != null) {
+                    batch.add(call);
+                }
+                handle(batch);
+                flushed = true;
+            }
+        } finally {
+            drainLock.unlock();
+        }
+        return flushed;
+    }
+
+    private void handle(List<Invocation<T>> batch) {
+        var start = System.nanoTime();
+        try {
+            batchHandler.flush(batch);
+        } catch (Exception e) {
+            counters.failedFlushes.increment();
+        } finally {
+            var nanos = System.nanoTime() - start;
+            counters.flushes.increment();
+            counters.flushedCalls.add(batch.size());
+            counters.totalFlushNanos.add(nanos);
+            counters.maxFlushNanos.accumulate(nanos);
+        }
+    }
+
+    /**
+     * Bounded lock free multi producer single consumer queue. Producers claim a slot by
+     * incrementing the producer index and then publish their element into the slot. The
+     * consumer waits for the element of a claimed slot to be published before taking it.
+     */
+    private static final class MpscQueue<E> {
+        private final AtomicReferenceArray<E> buffer;
+        private final int mask;
+        private final AtomicLong producerIndex = new AtomicLong();
+        private final AtomicLong consumerIndex = new AtomicLong();
+
+        MpscQueue(int capacity) {
+            var size = Integer.highestOneBit(capacity - 1) << 1;
+            this.buffer = new AtomicReferenceArray<>(Math.max(2, size));
+            this.mask = buffer.length() - 1;
+        }
+
+        boolean offer(E element) {
+            while (true) {
+                var producer = producerIndex.get();
+                if (producer - consumerIndex.get() >= buffer.length()) {
+                    return false;
+                }
+                if (producerIndex.compareAndSet(producer, producer + 1)) {
+                    buffer.lazySet((int) producer & mask, element);
+                    return true;
+                }
+            }
+        }
+
+        E poll() {
+            var consumer = consumerIndex.get();
+            if (consumer == producerIndex.get()) {
+                return null;
+            }
+
+            var slot = (int) consumer & mask;
+            E element;
+            while ((element = buffer.get(slot)) == null) {
+                Thread.onSpinWait();
+            }
+            buffer.lazySet(slot, null);
+            consumerIndex.lazySet(consumer + 1);
+            return element;
+        }
+
+        int size() {
+            return (int) (producerIndex.get() - consumerIndex.get());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package michid.proxybuddy;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import michid.proxybuddy.ProxyBuddy.Interceptor;
+import michid.proxybuddy.ProxyBuddy.Invocation;
+
+/**
+ * Interceptor holding a permit of its {@link ConcurrencyLimit} for the duration of each call.
+ */
+final class Bulkhead<T> implements Interceptor<T> {
+    private static final long MAX_BACK_OFF_NANOS = 1_000_000;
+
+    private final ConcurrencyLimit limit;
+
+    Bulkhead(ConcurrencyLimit limit) {
+        this.limit = limit;
+    }
+
+    @Override
+    public Object intercept(Invocation<T> invocation) throws Exception {
+        var permits = limit.permits(invocation.method());
+        var stripe = permits.tryAcquire();
+        if (stripe < 0) {
+            if (limit.overflow() == ConcurrencyLimit.Overflow.REJECT) {
+                permits.rejected.increment();
+                throw new RejectedExecutionException(
+                    "Concurrency limit of " + permits.limit + " reached for " + invocation.method());
+            }
+            stripe = waitForPermit(permits);
+        }
+
+        try {
+            return invocation.proceed();
+        } finally {
+            permits.release(stripe);
+        }
+    }
+
+    private static int waitForPermit(Permits permits) throws InterruptedException {
+        long backOff = 1_000;
+        int stripe;
+        while ((stripe = permits.tryAcquire()) < 0) {
+            LockSupport.parkNanos(backOff);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            backOff = Math.min(2 * backOff, MAX_BACK_OFF_NANOS);
+        }
+        return stripe;
+    }
+
+    /**
+     * Permits of a single method split into stripes. The stripes are spread over separate
+     * cache lines. Each stripe counts its permits in use up to its share of the limit.
+     */
+    static final class Permits {
+        // Ints per cache line such that stripes do not share cache lines
+        private static final int PADDING = 16;
+
+        private final int limit;
+        private final int[] capacities;
+        private final int mask;
+        private final AtomicIntegerArray used;
+        private final LongAdder rejected = new LongAdder();
+
+        Permits(int limit) {
+            var processors = Runtime.getRuntime().availableProcessors();
+            var stripes = Integer.highestOneBit(Math.min(limit, Math.max(1, processors)));
+
+            this.limit = limit;
+            this.capacities = new int[stripes];
+            for (int k = 0; k < stripes; k++) {
+                capacities[k] = limit / stripes + (k < limit % stripes ? 1 : 0);
+            }
+            this.mask = stripes - 1;
+            this.used = new AtomicIntegerArray(stripes * PADDING);
+        }
+
+        /**
+         * @return  the stripe the permit was taken from or {@code -1} if all permits are taken
+         */
+        int tryAcquire() {
+            var start = probe();
+            for (int k = 0; k < capacities.length; k++) {
+                var stripe = start + k & mask;
+                var slot = stripe * PADDING;
+                var inUse = used.get(slot);
+                while (inUse < capacities[stripe]) {
+                    if (used.compareAndSet(slot, inUse, inUse + 1)) {
+                        return stripe;
+                    }
+                    inUse = used.get(slot);
+                }
+            }
+            return -1;
+        }
+
+        void release(int stripe) {
+            used.decrementAndGet(stripe * PADDING);
+        }
+
+        private int probe() {
+            var id = Thread.currentThread().getId();
+            var hash = (int) (id ^ id >>> 32) * 0x9E3779B9;
+            return (hash ^ hash >>> 16) & mask;
+        }
+
+        ConcurrencyLimit.Stats stats() {
+            int inFlight = 0;
+            for (int k = 0; k < capacities.length; k++) {
+                inFlight += used.get(k * PADDING);
+            }
+            return new ConcurrencyLimit.Stats(limit, inFlight, rejected.sum());
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package michid.proxybuddy;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounds and statistics of the result caches of proxies created with
+ * {@link ProxyBuddy#withMemoization(net.bytebuddy.matcher.ElementMatcher, CachePolicy)}. Each
+ * memoized method of each proxy gets its own cache, which holds at most
+ * {@link #maximumSize(int) maximumSize} results. Caches are split into segments for concurrency,
+ * each of which evicts its least recently used results, such that eviction is approximately
+ * least recently used across a cache. Caches optionally drop results older than
+ * {@link #expireAfterWrite(Duration)}. Hits, misses and evictions are counted per method across
+ * all proxies sharing the policy.
+ * <pre>
+ * var policy = CachePolicy.maximumSize(1000).expireAfterWrite(Duration.ofMinutes(5));
+ * var proxy = new ProxyBuddy<>(MyClass.class, invocationHandler)
+ *     .withMemoization(named("lookup"), policy)
+ *     .createProxy();
+ *
+ * proxy.lookup(key);
+ * var stats = policy.stats(MyClass.class.getMethod("lookup", String.class));
+ * </pre>
+ */
+public final class CachePolicy {
+    private final int maximumSize;
+    private final long expireAfterWriteNanos;
+    private final Map<Method, Counters> counters = new ConcurrentHashMap<>();
+
+    private CachePolicy(int maximumSize, long expireAfterWriteNanos) {
+        this.maximumSize = maximumSize;
+        this.expireAfterWriteNanos = expireAfterWriteNanos;
+    }
+
+    /**
+     * Create a policy bounding caches to {@code maximumSize} results per method and proxy.
+     * @param maximumSize  maximal number of cached results
+     * @return  a new {@code CachePolicy} instance
+     * @throws IllegalArgumentException  if {@code maximumSize} is not positive
+     */
+    public static CachePolicy maximumSize(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+        return new CachePolicy(maximumSize, 0);
+    }
+
+    /**
+     * Create a policy that additionally drops results once {@code duration} has passed since
+     * they were cached. The returned policy starts with empty statistics.
+     * @param duration  time to live of cached results
+     * @return  a new {@code CachePolicy} instance
+     * @throws IllegalArgumentException  if {@code duration} is not positive
+     */
+    public CachePolicy expireAfterWrite(Duration duration) {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Duration must be positive: " + duration);
+        }
+        return new CachePolicy(maximumSize, duration.toNanos());
+    }
+
+    int maximumSize() {
+        return maximumSize;
+    }
+
+    long expireAfterWriteNanos() {
+        return expireAfterWriteNanos;
+    }
+
+    Counters counters(Method method) {
+        var methodCounters = counters.get(method);
+        return methodCounters == null
+            ? counters.computeIfAbsent(method, __ -> new Counters())
+            : methodCounters;
+    }
+
+    /**
+     * Statistics of the caches of a single method.
+     * @param method  the memoized method
+     * @return  the statistics of {@code method} or empty statistics if the method has not
+     *          been called.
+     */
+    public Stats stats(Method method) {
+        var methodCounters = counters.get(method);
+        return methodCounters == null
+            ? new Stats(0, 0, 0)
+            : methodCounters.stats();
+    }
+
+    /**
+     * Statistics of the caches of all methods that have been called.
+     * @return  a map from the memoized methods to their statistics
+     */
+    public Map<Method, Stats> stats() {
+        var stats = new HashMap<Method, Stats>();
+        counters.forEach((method, methodCounters) -> stats.put(method, methodCounters.stats()));
+        return stats;
+    }
+
+    /**
+     * Discard all statistics recorded so far. Cached results are not affected.
+     */
+    public void resetStats() {
+        counters.clear();
+    }
+
+    /**
+     * Point in time view of the statistics of a method. Like those of
+     * {@link ProxyMetrics.Snapshot}, the counters are not guaranteed to be mutually consistent.
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+
+        private Stats(long hits, long misses, long evictions) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+        }
+
+        /**
+         * @return  number of calls answered from the cache
+         */
+        public long hits() {
+            return hits;
+        }
+
+        /**
+         * @return  number of calls passed on because their result was not cached
+         */
+        public long misses() {
+            return misses;
+        }
+
+        /**
+         * @return  number of results dropped because the cache was full or they expired
+         */
+        public long evictions() {
+            return evictions;
+        }
+
+        /**
+         * @return  ratio of hits to all calls or {@code 0} if there were no calls
+         */
+        public double hitRate() {
+            var requests = hits + misses;
+            return requests == 0
+                ? 0
+                : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d misses=%d evictions=%d hitRate=%.2f", hits, misses, evictions, hitRate());
+        }
+    }
+
+    static final class Counters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+
+        Stats stats() {
+            return new Stats(hits.sum(), misses.sum(), evictions.sum());
+        }
+    }
+}
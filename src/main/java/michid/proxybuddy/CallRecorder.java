@@ -0,0 +1,430 @@
+package michid.proxybuddy;
+
+import static java.lang.invoke.MethodHandles.byteBufferViewVarHandle;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Flight recorder keeping the last calls of proxies created with
+ * {@link ProxyBuddy#withRecorder(CallRecorder)}. For each call the recorder keeps the method,
+ * a summary of the first two arguments, the time stamp, the duration and the class of the
+ * exception thrown, if any. Records are written into a ring buffer of fixed size records
+ * in off-heap memory, which is allocated once when the recorder is created.
+ * <p>
+ * Methods and classes are recorded by ids, which a recorder assigns to at most
+ * {@value #MAX_IDS} methods and classes. The recorder only keeps weak references to them, such
+ * that it does not keep their class loaders from being unloaded. Methods and classes without
+ * an id or unloaded since are reported as unknown by the records.
+ * <p>
+ * Writers claim a slot by incrementing a shared cursor and then publish their record by writing
+ * its sequence number last. Recording neither locks nor allocates. Readers copy records and
+ * discard those overwritten while being read. A writer finding its slot still being written by
+ * a writer a whole lap behind drops its record instead of waiting.
+ * <pre>
+ * var recorder = CallRecorder.ofCapacity(1024);
+ * var proxy = new ProxyBuddy<>(MyClass.class, invocationHandler)
+ *     .withRecorder(recorder)
+ *     .createProxy();
+ *
+ * recorder.dump(System.out);
+ * </pre>
+ */
+public final class CallRecorder {
+    private static final VarHandle LONGS = byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    // Record layout
+    private static final int RECORD_SIZE = 64;
+    private static final int SEQUENCE = 0;
+    private static final int TIMESTAMP = 8;
+    private static final int DURATION = 16;
+    private static final int METHOD = 24;
+    private static final int ARGUMENT_COUNT = 28;
+    private static final int ARGUMENT_0 = 32;
+    private static final int ARGUMENT_1 = 40;
+    private static final int THREAD = 48;
+    private static final int THROWN = 56;
+    private static final int TAGS = 60;
+
+    // Sequence of a slot while its record is being written
+    private static final long WRITING = -1;
+
+    /**
+     * Maximal number of methods and classes a recorder assigns ids to.
+     */
+    public static final int MAX_IDS = 1 << 16;
+
+    // Id of methods and classes seen after all ids were assigned
+    private static final int UNKNOWN = -2;
+
+    private static final int TAG_NONE = 0;
+    private static final int TAG_NULL = 1;
+    private static final int TAG_LONG = 2;
+    private static final int TAG_DOUBLE = 3;
+    private static final int TAG_BOOLEAN = 4;
+    private static final int TAG_CHAR = 5;
+    private static final int TAG_STRING = 6;
+    private static final int TAG_OBJECT = 7;
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final AtomicLong cursor = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final ClassValue<Integer> classIds = new ClassValue<>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return register(type);
+        }
+    };
+    private final ClassValue<Map<Method, Integer>> methodIds = new ClassValue<>() {
+        @Override
+        protected Map<Method, Integer> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    private final List<WeakReference<Object>> values = new ArrayList<>();
+    private long drained;
+
+    private CallRecorder(int capacity) {
+        this.capacity = capacity;
+        this.buffer = ByteBuffer.allocateDirect(capacity * RECORD_SIZE + Long.BYTES)
+            .alignedSlice(Long.BYTES)
+            .order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Create a recorder keeping the last {@code capacity} calls.
+     * @param capacity  number of records, rounded up to a power of two
+     * @return  a new {@code CallRecorder} instance
+     * @throws IllegalArgumentException  if {@code capacity} is not positive
+     */
+    public static CallRecorder ofCapacity(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 24) {
+            throw new IllegalArgumentException("Capacity not between 1 and 2^24: " + capacity);
+        }
+        return new CallRecorder(Math.max(2, Integer.highestOneBit(capacity - 1) << 1));
+    }
+
+    /**
+     * @return  number of records this recorder keeps
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return  number of calls recorded so far, including overwritten ones
+     */
+    public long recorded() {
+        return cursor.get();
+    }
+
+    /**
+     * @return  number of calls not recorded because their slot was still being written
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    void record(Method method, Object[] arguments, long startNanos, long durationNanos, Throwable thrown) {
+        var sequence = cursor.getAndIncrement();
+        var offset = (int) (sequence & capacity - 1) * RECORD_SIZE;
+
+        var previous = (long) LONGS.getVolatile(buffer, offset + SEQUENCE);
+        if (previous == WRITING || previous > sequence || !LONGS.compareAndSet(buffer, offset + SEQUENCE, previous, WRITING)) {
+            dropped.increment();
+            return;
+        }
+
+        LONGS.set(buffer, offset + TIMESTAMP, System.currentTimeMillis() - (System.nanoTime() - startNanos) / 1_000_000);
+        LONGS.set(buffer, offset + DURATION, durationNanos);
+        INTS.set(buffer, offset + METHOD, id(method));
+        INTS.set(buffer, offset + ARGUMENT_COUNT, arguments == null ? 0 : arguments.length);
+        int tag0 = summarize(arguments, 0, offset + ARGUMENT_0);
+        int tag1 = summarize(arguments, 1, offset + ARGUMENT_1);
+        INTS.set(buffer, offset + TAGS, tag0 | tag1 << 8);
+        LONGS.set(buffer, offset + THREAD, Thread.currentThread().getId());
+        INTS.set(buffer, offset + THROWN, thrown == null ? -1 : classIds.get(thrown.getClass()));
+
+        // Publish. Sequence numbers are offset by one such that 0 marks an empty slot.
+        LONGS.setRelease(buffer, offset + SEQUENCE, sequence + 1);
+    }
+
+    private int summarize(Object[] arguments, int index, int offset) {
+        if (arguments == null || index >= arguments.length) {
+            LONGS.set(buffer, offset, 0L);
+            return TAG_NONE;
+        }
+
+        var argument = arguments[index];
+        long value;
+        int tag;
+        if (argument == null) {
+            value = 0;
+            tag = TAG_NULL;
+        } else if (argument instanceof Integer || argument instanceof Long
+                || argument instanceof Short || argument instanceof Byte) {
+            value = ((Number) argument).longValue();
+            tag = TAG_LONG;
+        } else if (argument instanceof Double || argument instanceof Float) {
+            value = Double.doubleToRawLongBits(((Number) argument).doubleValue());
+            tag = TAG_DOUBLE;
+        } else if (argument instanceof Boolean bool) {
+            value = bool ? 1 : 0;
+            tag = TAG_BOOLEAN;
+        } else if (argument instanceof Character character) {
+            value = character;
+            tag = TAG_CHAR;
+        } else if (argument instanceof String string) {
+            value = (long) string.length() << 32 | string.hashCode() & 0xffffffffL;
+            tag = TAG_STRING;
+        } else {
+            value = (long) classIds.get(argument.getClass()) << 32 | System.identityHashCode(argument) & 0xffffffffL;
+            tag = TAG_OBJECT;
+        }
+        LONGS.set(buffer, offset, value);
+        return tag;
+    }
+
+    // Methods and classes are recorded by id. Ids are assigned on first sight and never change.
+    // Ids are looked up through the declaring class of methods and the classes themselves, such
+    // that the lookup tables go away together with the classes.
+    private int id(Method method) {
+        var ids = methodIds.get(method.getDeclaringClass());
+        var id = ids.get(method);
+        if (id == null) {
+            id = ids.computeIfAbsent(method, this::register);
+        }
+        return id;
+    }
+
+    private synchronized int register(Object value) {
+        if (values.size() == MAX_IDS) {
+            return UNKNOWN;
+        }
+        values.add(new WeakReference<>(value));
+        return values.size() - 1;
+    }
+
+    private synchronized Object value(int id) {
+        return id == UNKNOWN
+            ? null
+            : values.get(id).get();
+    }
+
+    /**
+     * Copy of the records currently in the ring buffer from the oldest to the most recent one.
+     * Records being written or overwritten while being read are skipped.
+     * @return  the recorded calls
+     */
+    public List<Record> snapshot() {
+        var end = cursor.get();
+        return read(Math.max(0, end - capacity), end);
+    }
+
+    /**
+     * Records of the calls made since the previous call to {@code drain}. Records overwritten
+     * before they were drained are lost.
+     * @return  the recorded calls
+     */
+    public synchronized List<Record> drain() {
+        var end = cursor.get();
+        var records = read(Math.max(drained, end - capacity), end);
+        drained = end;
+        return records;
+    }
+
+    /**
+     * Write the records currently in the ring buffer to {@code out}, one per line.
+     * @param out  destination of the dump
+     * @throws IOException
+     */
+    public void dump(Appendable out) throws IOException {
+        for (var record : snapshot()) {
+            out.append(record.toString()).append(System.lineSeparator());
+        }
+    }
+
+    private List<Record> read(long start, long end) {
+        var records = new ArrayList<Record>((int) (end - start));
+        for (var sequence = start; sequence < end; sequence++) {
+            var offset = (int) (sequence & capacity - 1) * RECORD_SIZE;
+            if ((long) LONGS.getAcquire(buffer, offset + SEQUENCE) != sequence + 1) {
+                continue;
+            }
+
+            var timestamp = (long) LONGS.get(buffer, offset + TIMESTAMP);
+            var duration = (long) LONGS.get(buffer, offset + DURATION);
+            var method = (int) INTS.get(buffer, offset + METHOD);
+            var argumentCount = (int) INTS.get(buffer, offset + ARGUMENT_COUNT);
+            var argument0 = (long) LONGS.get(buffer, offset + ARGUMENT_0);
+            var argument1 = (long) LONGS.get(buffer, offset + ARGUMENT_1);
+            var tags = (int) INTS.get(buffer, offset + TAGS);
+            var thread = (long) LONGS.get(buffer, offset + THREAD);
+            var thrown = (int) INTS.get(buffer, offset + THROWN);
+
+            // Discard the copy if a writer claimed the slot while it was being read
+            VarHandle.acquireFence();
+            if ((long) LONGS.getVolatile(buffer, offset + SEQUENCE) != sequence + 1) {
+                continue;
+            }
+
+            records.add(new Record(
+                sequence,
+                timestamp,
+                duration,
+                (Method) value(method),
+                argumentCount,
+                new String[] {
+                    describe(tags & 0xff, argument0),
+                    describe(tags >>> 8 & 0xff, argument1)},
+                thread,
+                thrown(thrown)));
+        }
+        return records;
+    }
+
+    private Class<?> thrown(int id) {
+        if (id == -1) {
+            return null;
+        }
+        var thrown = (Class<?>) value(id);
+        return thrown == null
+            ? Throwable.class
+            : thrown;
+    }
+
+    private String describe(int tag, long value) {
+        return switch (tag) {
+            case TAG_NULL -> "null";
+            case TAG_LONG -> Long.toString(value);
+            case TAG_DOUBLE -> Double.toString(Double.longBitsToDouble(value));
+            case TAG_BOOLEAN -> Boolean.toString(value != 0);
+            case TAG_CHAR -> "'" + (char) value + "'";
+            case TAG_STRING -> "String[length=" + (value >>> 32) + ", hash=" + (int) value + "]";
+            case TAG_OBJECT -> className((Class<?>) value((int) (value >>> 32)))
+                + "@" + Integer.toHexString((int) value);
+            default -> null;
+        };
+    }
+
+    private static String className(Class<?> type) {
+        return type == null
+            ? "?"
+            : type.getName();
+    }
+
+    /**
+     * A recorded call.
+     */
+    public static final class Record {
+        private final long sequence;
+        private final long timestampMillis;
+        private final long durationNanos;
+        private final Method method;
+        private final int argumentCount;
+        private final String[] arguments;
+        private final long threadId;
+        private final Class<?> thrown;
+
+        private Record(long sequence, long timestampMillis, long durationNanos, Method method, int argumentCount,
+                String[] arguments, long threadId, Class<?> thrown) {
+            this.sequence = sequence;
+            this.timestampMillis = timestampMillis;
+            this.durationNanos = durationNanos;
+            this.method = method;
+            this.argumentCount = argumentCount;
+            this.arguments = arguments;
+            this.threadId = threadId;
+            this.thrown = thrown;
+        }
+
+        /**
+         * @return  position of this call in the sequence of all recorded calls
+         */
+        public long sequence() {
+            return sequence;
+        }
+
+        /**
+         * @return  time the call started in milliseconds since the epoch
+         */
+        public long timestampMillis() {
+            return timestampMillis;
+        }
+
+        /**
+         * @return  duration of the call in nanoseconds
+         */
+        public long durationNanos() {
+            return durationNanos;
+        }
+
+        /**
+         * @return  the method that was called or {@code null} if it is unknown to the recorder
+         */
+        public Method method() {
+            return method;
+        }
+
+        /**
+         * @return  number of arguments of the call
+         */
+        public int argumentCount() {
+            return argumentCount;
+        }
+
+        /**
+         * Summary of an argument. Primitive values are recorded as they are, strings by their
+         * length and hash code and other objects by their class and identity hash code.
+         * @param index  {@code 0} or {@code 1}
+         * @return  summary of the argument or {@code null} if the call had no such argument
+         */
+        public String argument(int index) {
+            return arguments[index];
+        }
+
+        /**
+         * @return  id of the thread that made the call
+         */
+        public long threadId() {
+            return threadId;
+        }
+
+        /**
+         * @return  class of the exception thrown by the call, {@code Throwable} if the class is
+         *          unknown to the recorder or {@code null} if the call returned normally
+         */
+        public Class<?> thrown() {
+            return thrown;
+        }
+
+        @Override
+        public String toString() {
+            var arguments = new StringBuilder();
+            for (int k = 0; k < Math.min(2, argumentCount); k++) {
+                arguments.append(k == 0 ? "" : ", ").append(this.arguments[k]);
+            }
+            if (argumentCount > 2) {
+                arguments.append(", ...");
+            }
+
+            return String.format("#%d %tFT%<tT.%<tL %s.%s(%s) %d ns thread=%d%s",
+                sequence, timestampMillis,
+                method == null ? "?" : method.getDeclaringClass().getSimpleName(),
+                method == null ? "?" : method.getName(),
+                arguments, durationNanos, threadId, thrown == null ? "" : " threw " + thrown.getName());
+        }
+    }
+}
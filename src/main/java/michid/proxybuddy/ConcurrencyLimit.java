@@ -0,0 +1,146 @@
+package michid.proxybuddy;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limit on the number of concurrent calls per method of proxies created with
+ * {@link ProxyBuddy#withConcurrencyLimit(net.bytebuddy.matcher.ElementMatcher, ConcurrencyLimit)}.
+ * The permits of a method are shared by all proxies using the same limit, such that a limit
+ * protects a shared target regardless of how many proxies front it. Permits are split into
+ * stripes, which callers acquire with a single compare and swap on the uncontended path. A caller
+ * finding its stripe exhausted tries the other stripes before the {@link Overflow} policy applies.
+ * <pre>
+ * var limit = ConcurrencyLimit.of(32).onOverflow(ConcurrencyLimit.Overflow.REJECT);
+ * var proxy = new ProxyBuddy<>(Client.class, invocationHandler)
+ *     .withConcurrencyLimit(named("fetch"), limit)
+ *     .createProxy();
+ * </pre>
+ */
+public final class ConcurrencyLimit {
+    private final int limit;
+    private final Overflow overflow;
+    private final Map<Method, Bulkhead.Permits> permits = new ConcurrentHashMap<>();
+
+    /**
+     * What happens to calls that find all permits taken.
+     */
+    public enum Overflow {
+
+        /**
+         * The call fails with a {@link java.util.concurrent.RejectedExecutionException}.
+         */
+        REJECT,
+
+        /**
+         * The caller waits until a permit is released. Waiting callers poll with increasing
+         * back off instead of queueing, such that releasing a permit stays lock free.
+         */
+        WAIT
+    }
+
+    private ConcurrencyLimit(int limit, Overflow overflow) {
+        this.limit = limit;
+        this.overflow = overflow;
+    }
+
+    /**
+     * Create a limit of {@code limit} concurrent calls per method that rejects further calls.
+     * @param limit  maximal number of concurrent calls
+     * @return  a new {@code ConcurrencyLimit} instance
+     * @throws IllegalArgumentException  if {@code limit} is not positive
+     */
+    public static ConcurrencyLimit of(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        return new ConcurrencyLimit(limit, Overflow.REJECT);
+    }
+
+    /**
+     * Create a limit handling calls that find all permits taken according to {@code overflow}.
+     * The returned limit has its own permits.
+     * @param overflow  overflow policy
+     * @return  a new {@code ConcurrencyLimit} instance
+     */
+    public ConcurrencyLimit onOverflow(Overflow overflow) {
+        return new ConcurrencyLimit(limit, overflow);
+    }
+
+    Overflow overflow() {
+        return overflow;
+    }
+
+    Bulkhead.Permits permits(Method method) {
+        var methodPermits = permits.get(method);
+        return methodPermits == null
+            ? permits.computeIfAbsent(method, __ -> new Bulkhead.Permits(limit))
+            : methodPermits;
+    }
+
+    /**
+     * Statistics of a single method.
+     * @param method  the limited method
+     * @return  the statistics of {@code method} or empty statistics if the method has not
+     *          been called.
+     */
+    public Stats stats(Method method) {
+        var methodPermits = permits.get(method);
+        return methodPermits == null
+            ? new Stats(limit, 0, 0)
+            : methodPermits.stats();
+    }
+
+    /**
+     * Statistics of all methods that have been called.
+     * @return  a map from the limited methods to their statistics
+     */
+    public Map<Method, Stats> stats() {
+        var stats = new HashMap<Method, Stats>();
+        permits.forEach((method, methodPermits) -> stats.put(method, methodPermits.stats()));
+        return stats;
+    }
+
+    /**
+     * Point in time view of the permits of a method.
+     */
+    public static final class Stats {
+        private final int limit;
+        private final int inFlight;
+        private final long rejected;
+
+        Stats(int limit, int inFlight, long rejected) {
+            this.limit = limit;
+            this.inFlight = inFlight;
+            this.rejected = rejected;
+        }
+
+        /**
+         * @return  maximal number of concurrent calls
+         */
+        public int limit() {
+            return limit;
+        }
+
+        /**
+         * @return  number of calls currently holding a permit
+         */
+        public int inFlight() {
+            return inFlight;
+        }
+
+        /**
+         * @return  number of calls rejected because all permits were taken
+         */
+        public long rejected() {
+            return rejected;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("limit=%d inFlight=%d rejected=%d", limit, inFlight, rejected);
+        }
+    }
+}
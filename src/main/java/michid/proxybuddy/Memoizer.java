@@ -0,0 +1,156 @@
+package michid.proxybuddy;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import michid.proxybuddy.ProxyBuddy.Interceptor;
+import michid.proxybuddy.ProxyBuddy.Invocation;
+
+/**
+ * Interceptor returning cached results for calls with arguments seen before. Each proxy gets
+ * its own {@code Memoizer}, which keeps a bounded cache per method. Caches are split into
+ * segments by the hash of the arguments, whose sizes add up to the maximum size of the cache.
+ * Each segment is an access ordered map evicting its least recently used entry, guarded by its
+ * own lock. Eviction is therefore only approximately least recently used across the cache.
+ * Results are computed outside the lock, such that concurrent misses for the same arguments
+ * may both call through.
+ */
+final class Memoizer<T> implements Interceptor<T> {
+    private static final int MAX_SEGMENTS = 16;
+
+    private final CachePolicy policy;
+    private final Map<Method, Cache> caches = new ConcurrentHashMap<>();
+
+    Memoizer(CachePolicy policy) {
+        this.policy = policy;
+    }
+
+    @Override
+    public Object intercept(Invocation<T> invocation) throws Exception {
+        var method = invocation.method();
+        var cache = caches.get(method);
+        if (cache == null) {
+            cache = caches.computeIfAbsent(method, __ -> new Cache(policy, policy.counters(method)));
+        }
+        return cache.get(invocation);
+    }
+
+    private static final class Cache {
+        private final Segment[] segments;
+        private final long expireAfterWriteNanos;
+        private final CachePolicy.Counters counters;
+
+        Cache(CachePolicy policy, CachePolicy.Counters counters) {
+            // Spread the remainder over the first segments such that the sizes add up to exactly maximumSize
+            var segmentCount = Math.min(MAX_SEGMENTS, Integer.highestOneBit(policy.maximumSize()));
+            var segmentSize = policy.maximumSize() / segmentCount;
+            var remainder = policy.maximumSize() % segmentCount;
+
+            this.segments = new Segment[segmentCount];
+            for (int k = 0; k < segmentCount; k++) {
+                segments[k] = new Segment(k < remainder ? segmentSize + 1 : segmentSize, counters);
+            }
+            this.expireAfterWriteNanos = policy.expireAfterWriteNanos();
+            this.counters = counters;
+        }
+
+        Object get(Invocation<?> invocation) throws Exception {
+            var key = key(invocation.arguments());
+            var hash = Objects.hashCode(key);
+            var segment = segments[(hash ^ hash >>> 16) & segments.length - 1];
+            var now = expireAfterWriteNanos == 0 ? 0 : System.nanoTime();
+
+            Entry entry;
+            synchronized (segment) {
+                entry = segment.get(key);
+                if (entry != null && expireAfterWriteNanos != 0 && now - entry.written >= expireAfterWriteNanos) {
+                    segment.remove(key);
+                    counters.evictions.increment();
+                    entry = null;
+                }
+            }
+
+            if (entry != null) {
+                counters.hits.increment();
+                return entry.value;
+            }
+
+            counters.misses.increment();
+            var value = invocation.proceed();
+            synchronized (segment) {
+                segment.put(key, new Entry(value, now));
+            }
+            return value;
+        }
+    }
+
+    private static final class Segment extends LinkedHashMap<Object, Entry> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maximumSize;
+        private final CachePolicy.Counters counters;
+
+        Segment(int maximumSize, CachePolicy.Counters counters) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+            this.counters = counters;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+            if (size() > maximumSize) {
+                counters.evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private record Entry(Object value, long written) {}
+
+    private static final Object NO_ARGUMENTS = new Object();
+
+    // Methods with up to two arguments are keyed without copying the argument array
+    private static Object key(Object[] arguments) {
+        return switch (arguments.length) {
+            case 0 -> NO_ARGUMENTS;
+            case 1 -> isArray(arguments[0])
+                ? new ArgumentsKey(arguments.clone())
+                : arguments[0];
+            case 2 -> isArray(arguments[0]) || isArray(arguments[1])
+                ? new ArgumentsKey(arguments.clone())
+                : new PairKey(arguments[0], arguments[1]);
+            default -> new ArgumentsKey(arguments.clone());
+        };
+    }
+
+    private static boolean isArray(Object argument) {
+        return argument != null && argument.getClass().isArray();
+    }
+
+    private record PairKey(Object first, Object second) {}
+
+    private static final class ArgumentsKey {
+        private final Object[] arguments;
+        private final int hashCode;
+
+        ArgumentsKey(Object[] arguments) {
+            this.arguments = arguments;
+            this.hashCode = Arrays.deepHashCode(arguments);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ArgumentsKey key && Arrays.deepEquals(arguments, key.arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
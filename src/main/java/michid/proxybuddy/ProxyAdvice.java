@@ -0,0 +1,141 @@
+package michid.proxybuddy;
+
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.asm.AsmVisitorWrapper;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+import net.bytebuddy.implementation.bytecode.constant.MethodConstant;
+import net.bytebuddy.matcher.ElementMatcher;
+
+import michid.proxybuddy.ProxyBuddy.Invoker;
+
+/**
+ * Advice inlined into proxy classes for features that wrap the implementation of
+ * proxied methods.
+ */
+final class ProxyAdvice {
+    private ProxyAdvice() {}
+
+    /**
+     * Binds the instrumented {@link Method}. Unlike {@link Advice.Origin} the method is looked up
+     * once when the proxy class is initialised and then read from a static field.
+     */
+    @Retention(RUNTIME)
+    @Target(PARAMETER)
+    @interface CachedOrigin {}
+
+    private static final Advice.OffsetMapping CACHED_ORIGIN = new Advice.OffsetMapping() {
+        @Override
+        public Target resolve(
+                TypeDescription instrumentedType,
+                MethodDescription instrumentedMethod,
+                Assigner assigner,
+                Advice.ArgumentHandler argumentHandler,
+                Sort sort) {
+            return new Target.ForStackManipulation(MethodConstant.of(instrumentedMethod.asDefined()).cached());
+        }
+    };
+
+    /**
+     * Wrap {@code implementation} with the given advice class.
+     * @param advice  class declaring the advice methods
+     * @param implementation  implementation to wrap
+     * @return  the wrapped implementation
+     */
+    static Implementation wrap(Class<?> advice, Implementation implementation) {
+        return withCustomMapping()
+            .to(advice)
+            .wrap(implementation);
+    }
+
+    /**
+     * Apply the given advice class to the methods matched by {@code matcher} regardless of
+     * their implementation.
+     * @param advice  class declaring the advice methods
+     * @param matcher  matcher selecting the methods to apply the advice to
+     * @return  a visitor applying the advice
+     */
+    static AsmVisitorWrapper visit(Class<?> advice, ElementMatcher<? super MethodDescription> matcher) {
+        return withCustomMapping()
+            .to(advice)
+            .on(matcher);
+    }
+
+    private static Advice.WithCustomMapping withCustomMapping() {
+        return Advice.withCustomMapping()
+            .bind(CachedOrigin.class, CACHED_ORIGIN);
+    }
+
+    /**
+     * Calls the {@link ProxyBuddy.DelegationHook} before and after each delegated call.
+     */
+    static final class DelegationHook {
+        private DelegationHook() {}
+
+        @Advice.OnMethodEnter
+        static void enter(
+                @Advice.FieldValue("INVOKER") Invoker<Object> invoker,
+                @Advice.This Object proxy,
+                @CachedOrigin Method method) {
+            invoker.before(proxy, method);
+        }
+
+        @Advice.OnMethodExit(onThrowable = Throwable.class)
+        static void exit(
+                @Advice.FieldValue("INVOKER") Invoker<Object> invoker,
+                @Advice.This Object proxy,
+                @CachedOrigin Method method) {
+            invoker.after(proxy, method);
+        }
+    }
+
+    /**
+     * Creates the target of a lazy proxy on the first delegated call. Afterwards the target
+     * is read from the field of the proxy.
+     */
+    static final class LazyTarget {
+        private LazyTarget() {}
+
+        @Advice.OnMethodEnter
+        static void enter(
+                @Advice.FieldValue("INVOKER") Invoker<Object> invoker,
+                @Advice.FieldValue(value = "TARGET", readOnly = false, typing = Assigner.Typing.DYNAMIC) Object target) {
+            if (target == null) {
+                target = invoker.lazyTarget();
+            }
+        }
+    }
+
+    /**
+     * Records the latency of each call to the {@link ProxyMetrics} of the proxy. Calls from the
+     * super class constructor happen before the invoker is set and are not recorded.
+     */
+    static final class Metrics {
+        private Metrics() {}
+
+        @Advice.OnMethodEnter
+        static long enter() {
+            return System.nanoTime();
+        }
+
+        @Advice.OnMethodExit(onThrowable = Throwable.class)
+        static void exit(
+                @Advice.FieldValue("INVOKER") Invoker<?> invoker,
+                @CachedOrigin Method method,
+                @Advice.Enter long start,
+                @Advice.Thrown Throwable thrown) {
+            if (invoker != null) {
+                invoker.record(method, System.nanoTime() - start, thrown != null);
+            }
+        }
+    }
+}
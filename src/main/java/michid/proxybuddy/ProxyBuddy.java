@@ -2,28 +2,97 @@ package michid.proxybuddy;
 
 import static java.lang.invoke.MethodHandles.lookup;
 import static java.lang.invoke.MethodHandles.privateLookupIn;
+import static java.lang.invoke.MethodType.methodType;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static net.bytebuddy.description.modifier.FieldManifestation.FINAL;
+import static net.bytebuddy.description.modifier.FieldManifestation.VOLATILE;
 import static net.bytebuddy.description.modifier.Visibility.PRIVATE;
 import static net.bytebuddy.description.modifier.Visibility.PUBLIC;
 import static net.bytebuddy.dynamic.loading.ClassLoadingStrategy.UsingLookup;
 import static net.bytebuddy.implementation.MethodCall.invoke;
 import static net.bytebuddy.implementation.MethodDelegation.withDefaultConfiguration;
 import static net.bytebuddy.implementation.bind.annotation.Pipe.Binder.install;
+import static net.bytebuddy.matcher.ElementMatchers.any;
+import static net.bytebuddy.matcher.ElementMatchers.anyOf;
+import static net.bytebuddy.matcher.ElementMatchers.isDeclaredBy;
+import static net.bytebuddy.matcher.ElementMatchers.isEquals;
+import static net.bytebuddy.matcher.ElementMatchers.isFinal;
+import static net.bytebuddy.matcher.ElementMatchers.isHashCode;
+import static net.bytebuddy.matcher.ElementMatchers.isMethod;
 import static net.bytebuddy.matcher.ElementMatchers.isPublic;
+import static net.bytebuddy.matcher.ElementMatchers.isSuperTypeOf;
+import static net.bytebuddy.matcher.ElementMatchers.isSynthetic;
+import static net.bytebuddy.matcher.ElementMatchers.isVirtual;
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static net.bytebuddy.matcher.ElementMatchers.not;
+import static net.bytebuddy.matcher.ElementMatchers.returns;
+import static net.bytebuddy.matcher.ElementMatchers.takesArgument;
+import static net.bytebuddy.matcher.ElementMatchers.takesArguments;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.modifier.ModifierContributor;
+import net.bytebuddy.description.modifier.Ownership;
+import net.bytebuddy.description.modifier.SyntheticState;
+import net.bytebuddy.description.type.TypeDefinition;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.dynamic.scaffold.MethodGraph;
+import net.bytebuddy.dynamic.scaffold.subclass.ConstructorStrategy;
 import net.bytebuddy.implementation.FieldAccessor;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.MethodCall;
+import net.bytebuddy.implementation.auxiliary.AuxiliaryType;
 import net.bytebuddy.implementation.bind.annotation.AllArguments;
+import net.bytebuddy.implementation.bind.annotation.Argument;
 import net.bytebuddy.implementation.bind.annotation.Origin;
 import net.bytebuddy.implementation.bind.annotation.Pipe;
 import net.bytebuddy.implementation.bind.annotation.RuntimeType;
+import net.bytebuddy.implementation.bind.annotation.SuperCall;
 import net.bytebuddy.implementation.bind.annotation.This;
+import net.bytebuddy.implementation.bytecode.ByteCodeAppender;
+import net.bytebuddy.implementation.bytecode.StackManipulation;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+import net.bytebuddy.implementation.bytecode.collection.ArrayFactory;
+import net.bytebuddy.implementation.bytecode.constant.MethodConstant;
+import net.bytebuddy.implementation.bytecode.member.FieldAccess;
+import net.bytebuddy.implementation.bytecode.member.MethodInvocation;
+import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.matcher.ElementMatchers;
 
 /**
  * {@code ProxyBuddy} is a simple factory for creating dynamic proxies for arbitrary
@@ -44,22 +113,111 @@ import net.bytebuddy.implementation.bind.annotation.This;
  */
 public class ProxyBuddy<T> {
     private final Class<T> superClass;
+    private final InvocationHandler<T> invocationHandler;
     private final Cons<Class<?>> interfaces;
     private final Constructor<T> constructor;
     private final Object[] arguments;
-    private final InvocationHandler<T> invocationHandler;
+    private final boolean primitiveDispatch;
+    private final Equality equality;
+    private final Object witness;
+    private final Cons<Route<T>> routes;
+    private final Cons<Mixin<?>> mixins;
+    private final Supplier<? extends T> target;
+    private final boolean lazy;
+    private final DelegationHook<T> delegationHook;
+    private final ProxyMetrics metrics;
+    private final CallRecorder recorder;
+    private final boolean collectible;
+    private final ElementMatcher.Junction<MethodDescription> interception;
+    private final boolean superCall;
+    private final Cons<InterceptorBinding<T>> interceptors;
+    private final boolean methodIndex;
+    private final boolean skipConstructor;
 
-    private ProxyBuddy(
-            Class<T> superClass,
-            Cons<Class<?>> interfaces,
-            Constructor<T> constructor,
-            Object[] arguments,
-            InvocationHandler<T> invocationHandler) {
-        this.superClass = superClass;
-        this.interfaces = interfaces;
-        this.constructor = constructor;
-        this.arguments = arguments;
-        this.invocationHandler = invocationHandler;
+    private ProxyBuddy(Settings<T> settings) {
+        this.superClass = settings.superClass;
+        this.invocationHandler = settings.invocationHandler;
+        this.interfaces = settings.interfaces;
+        this.constructor = settings.constructor;
+        this.arguments = settings.arguments;
+        this.primitiveDispatch = settings.primitiveDispatch;
+        this.equality = settings.equality;
+        this.witness = settings.witness;
+        this.routes = settings.routes;
+        this.mixins = settings.mixins;
+        this.target = settings.target;
+        this.lazy = settings.lazy;
+        this.delegationHook = settings.delegationHook;
+        this.metrics = settings.metrics;
+        this.recorder = settings.recorder;
+        this.collectible = settings.collectible;
+        this.interception = settings.interception;
+        this.superCall = settings.superCall;
+        this.interceptors = settings.interceptors;
+        this.methodIndex = settings.methodIndex;
+        this.skipConstructor = settings.skipConstructor;
+    }
+
+    private ProxyBuddy<T> with(Consumer<Settings<T>> change) {
+        var settings = new Settings<>(this);
+        change.accept(settings);
+        return new ProxyBuddy<>(settings);
+    }
+
+    /**
+     * The settings of a {@code ProxyBuddy} instance while deriving a new instance from it.
+     */
+    private static final class Settings<T> {
+        Class<T> superClass;
+        InvocationHandler<T> invocationHandler;
+        Cons<Class<?>> interfaces = cons(ProxyBuddyProxy.class, null);
+        Constructor<T> constructor;
+        Object[] arguments = new Object[]{};
+        boolean primitiveDispatch;
+        Equality equality;
+        Object witness;
+        Cons<Route<T>> routes;
+        Cons<Mixin<?>> mixins;
+        Supplier<? extends T> target;
+        boolean lazy;
+        DelegationHook<T> delegationHook;
+        ProxyMetrics metrics;
+        CallRecorder recorder;
+        boolean collectible;
+        ElementMatcher.Junction<MethodDescription> interception;
+        boolean superCall;
+        Cons<InterceptorBinding<T>> interceptors;
+        boolean methodIndex;
+        boolean skipConstructor;
+
+        Settings(Class<T> superClass, InvocationHandler<T> invocationHandler) {
+            this.superClass = superClass;
+            this.invocationHandler = invocationHandler;
+        }
+
+        Settings(ProxyBuddy<T> proxyBuddy) {
+            this.superClass = proxyBuddy.superClass;
+            this.invocationHandler = proxyBuddy.invocationHandler;
+            this.interfaces = proxyBuddy.interfaces;
+            this.constructor = proxyBuddy.constructor;
+            this.arguments = proxyBuddy.arguments;
+            this.primitiveDispatch = proxyBuddy.primitiveDispatch;
+            this.equality = proxyBuddy.equality;
+            this.witness = proxyBuddy.witness;
+            this.routes = proxyBuddy.routes;
+            this.mixins = proxyBuddy.mixins;
+            this.target = proxyBuddy.target;
+            this.lazy = proxyBuddy.lazy;
+            this.delegationHook = proxyBuddy.delegationHook;
+            this.metrics = proxyBuddy.metrics;
+            this.recorder = proxyBuddy.recorder;
+            this.collectible = proxyBuddy.collectible;
+            this.interception = proxyBuddy.interception;
+            this.superCall = proxyBuddy.superCall;
+            this.interceptors = proxyBuddy.interceptors;
+            this.methodIndex = proxyBuddy.methodIndex;
+            this.skipConstructor = proxyBuddy.skipConstructor;
+        }
     }
 
     /**
@@ -79,7 +237,199 @@ public class ProxyBuddy<T> {
          * @return  result of the method call
          * @throws Exception
          */
-        Object invoke(T proxy, Function<T, Object> pipe, Method method, Object... arguments) throws Exception;
+        @RuntimeType
+        Object invoke(@This T proxy, @Pipe Function<T, Object> pipe, @Origin Method method, @AllArguments Object... arguments)
+        throws Exception;
+    }
+
+    /**
+     * A {@code PrimitiveInvocationHandler} receives calls to methods with primitive arguments and
+     * return values without boxing them and without allocating an argument array. It is used
+     * for proxies created with {@link #withPrimitiveDispatch()}. A method is dispatched to
+     * {@link #invoke(Object, Method, long, long)} if it takes at most two arguments of type
+     * {@code byte}, {@code short}, {@code char}, {@code int} or {@code long} and returns
+     * {@code void}, {@code boolean}, {@code int} or {@code long}. All other methods are
+     * dispatched to {@link InvocationHandler#invoke(Object, Function, Method, Object...)}.
+     *
+     * @param <T>
+     */
+    public interface PrimitiveInvocationHandler<T> extends InvocationHandler<T> {
+
+        /**
+         * The {@code invoke} method is called for each call to a method of a proxy with a
+         * primitive signature.
+         * @param proxy  the instance of the proxy this handler was invoked for.
+         * @param method  the method that was called on the proxy
+         * @param argument0  the first argument widened to {@code long} or {@code 0} if there is none
+         * @param argument1  the second argument widened to {@code long} or {@code 0} if there is none
+         * @return  result of the method call. Narrowed to {@code int} for methods returning {@code int},
+         *          converted to {@code true} if non zero for methods returning {@code boolean} and
+         *          ignored for {@code void} methods.
+         * @throws Exception
+         */
+        long invoke(T proxy, Method method, long argument0, long argument1) throws Exception;
+    }
+
+    /**
+     * A {@code SuperCallInvocationHandler} receives calls together with a {@link Callable} invoking
+     * the implementation of the called method in the super class of the proxy on the proxy itself.
+     * It is used for proxies created with {@link #withSuperCall()}, which are then the real object
+     * decorated by the handler and do not need a separate target instance.
+     *
+     * @param <T>
+     */
+    public interface SuperCallInvocationHandler<T> extends InvocationHandler<T> {
+
+        /**
+         * The {@code invoke} method is called for each call to a method of a proxy.
+         * @param proxy  the instance of the proxy this handler was invoked for.
+         * @param superCall  calls the super class implementation of {@code method} on {@code proxy}
+         *                   with the original arguments. {@code null} for abstract methods.
+         * @param method  the method that was called on the proxy
+         * @param arguments  the arguments that were passed to the proxy method
+         * @return  result of the method call
+         * @throws Exception
+         */
+        Object invoke(T proxy, Callable<Object> superCall, Method method, Object... arguments) throws Exception;
+
+        /**
+         * Calls {@link #invoke(Object, Callable, Method, Object...)} without a super call, as for
+         * abstract methods. Proxies never dispatch here: {@code ProxyBuddy} rejects a
+         * {@code SuperCallInvocationHandler} for proxies without {@link #withSuperCall()}.
+         */
+        @Override
+        default Object invoke(T proxy, Function<T, Object> pipe, Method method, Object... arguments) throws Exception {
+            return invoke(proxy, (Callable<Object>) null, method, arguments);
+        }
+    }
+
+    /**
+     * An {@code IndexedInvocationHandler} receives the index of the called method instead of the
+     * reflective {@link Method}. The index is dense per proxy class and assigned when the proxy
+     * class is generated. {@link ProxyMethods#of(Class)} maps it back to the method. It is used for
+     * proxies created with {@link #withMethodIndex()}.
+     *
+     * @param <T>
+     */
+    public interface IndexedInvocationHandler<T> extends InvocationHandler<T> {
+
+        /**
+         * The {@code invoke} method is called for each call to a method of a proxy.
+         * @param proxy  the instance of the proxy this handler was invoked for.
+         * @param pipe  a function for forwarding a proxy call to a real instance of the same type {@code T}.
+         * @param method  the index of the method that was called on the proxy
+         * @param arguments  the arguments that were passed to the proxy method
+         * @return  result of the method call
+         * @throws Exception
+         */
+        Object invoke(T proxy, Function<T, Object> pipe, int method, Object... arguments) throws Exception;
+
+        /**
+         * Calls {@link #invoke(Object, Function, int, Object...)} with the index of {@code method}
+         * in the {@link ProxyMethods#of(Class) method table} of the class of {@code proxy}. Proxies
+         * never dispatch here: {@code ProxyBuddy} rejects an {@code IndexedInvocationHandler} for
+         * proxies without {@link #withMethodIndex()}.
+         */
+        @Override
+        default Object invoke(T proxy, Function<T, Object> pipe, Method method, Object... arguments) throws Exception {
+            return invoke(proxy, pipe, ProxyMethods.of(proxy.getClass()).indexOf(method), arguments);
+        }
+    }
+
+    /**
+     * An {@code Interceptor} wraps calls to the invocation handler of a proxy. See
+     * {@link #interceptMethods(ElementMatcher, Interceptor[])}.
+     *
+     * @param <T>
+     */
+    public interface Interceptor<T> {
+
+        /**
+         * Called for each call to a method this interceptor applies to.
+         * @param invocation  the intercepted call. Call {@link Invocation#proceed()} for
+         *                    continuing with the next interceptor or eventually the invocation
+         *                    handler.
+         * @return  result of the method call
+         * @throws Exception
+         */
+        Object intercept(Invocation<T> invocation) throws Exception;
+    }
+
+    /**
+     * A {@code BatchHandler} receives the calls buffered by proxies created with
+     * {@link #withBatching(ElementMatcher, BatchPolicy, BatchHandler)}.
+     *
+     * @param <T>
+     */
+    public interface BatchHandler<T> {
+
+        /**
+         * Called from a flusher thread with the next batch of calls in the order they were
+         * made. Batches of the same {@code withBatching} are flushed one at a time, also when
+         * callers flush them with {@link BatchPolicy#flush()} or {@link BatchPolicy.Overflow#CALLER_RUNS}.
+         * Calling {@link Invocation#proceed()} on a call passes it on to the interceptors
+         * added after the batching and eventually to the invocation handler of the proxy.
+         * @param invocations  the batched calls
+         * @throws Exception  counted as a failed flush. The calls of the batch are lost.
+         */
+        void flush(List<Invocation<T>> invocations) throws Exception;
+    }
+
+    /**
+     * A call intercepted by an {@link Interceptor}.
+     *
+     * @param <T>
+     */
+    public interface Invocation<T> {
+
+        /**
+         * @return  the instance of the proxy that was called
+         */
+        T proxy();
+
+        /**
+         * @return  the method that was called on the proxy
+         */
+        Method method();
+
+        /**
+         * @return  the arguments that were passed to the proxy method. Changes to the array are
+         *          seen by the following interceptors and the invocation handler.
+         */
+        Object[] arguments();
+
+        /**
+         * Continue with the next interceptor or with the invocation handler if there is none.
+         * May be called repeatedly, e.g. for retrying a call, and also after the interceptor
+         * returned, e.g. for proceeding asynchronously.
+         * @return  result of the method call
+         * @throws Exception
+         */
+        Object proceed() throws Exception;
+    }
+
+    /**
+     * A {@code DelegationHook} is called before and after each call a proxy created with
+     * {@link #delegatingTo(Supplier, DelegationHook)} delegates to its target.
+     *
+     * @param <T>
+     */
+    public interface DelegationHook<T> {
+
+        /**
+         * Called before a call is delegated to the target.
+         * @param proxy  the instance of the proxy this hook was invoked for.
+         * @param method  the method that was called on the proxy
+         */
+        default void before(T proxy, Method method) {}
+
+        /**
+         * Called after a call was delegated to the target, regardless of whether the target
+         * returned normally or threw an exception.
+         * @param proxy  the instance of the proxy this hook was invoked for.
+         * @param method  the method that was called on the proxy
+         */
+        default void after(T proxy, Method method) {}
     }
 
     /**
@@ -89,7 +439,41 @@ public class ProxyBuddy<T> {
      * @param invocationHandler  handler receiving all calls to the returned proxy
      */
     public ProxyBuddy(Class<T> superClass, InvocationHandler<T> invocationHandler) {
-        this(superClass, cons(ProxyBuddyProxy.class, null), null, new Object[]{}, invocationHandler);
+        this(new Settings<>(superClass, invocationHandler));
+    }
+
+    /**
+     * Create a virtual proxy for {@code superClass} that defers creating its target until the
+     * first call to the proxy. Until then the proxy is cheap to create and to pass around: it is
+     * created {@link #withoutSuperConstructor() without} running any constructor of
+     * {@code superClass}, as all its calls go to the target. The
+     * first call obtains the target from {@code target}, concurrent first calls see the same
+     * target and {@code target} is called only once per proxy. The proxy class stores the target
+     * in a field and calls the target's methods directly from then on, without going through an
+     * invocation handler or synchronization.
+     * <pre>
+     * var service = ProxyBuddy.lazy(Service.class, Service::new)
+     *     .withProxyCanEqualTarget(key)
+     *     .createProxy();
+     * </pre>
+     * All overridden methods are delegated to the target, including those of interfaces added
+     * through {@link #withInterface(Class)}, which the target must implement. {@code equals}
+     * and {@code hashCode} are delegated unless an equality witness is configured, in which case
+     * they do not create the target.
+     * @param superClass  class to proxy
+     * @param target  supplier for the target receiving the calls to the proxy
+     * @return  a new {@code ProxyBuddy} instance
+     * @param <T>
+     */
+    public static <T> ProxyBuddy<T> lazy(Class<T> superClass, Supplier<? extends T> target) {
+        return new ProxyBuddy<T>(superClass, (proxy, pipe, method, arguments) -> {
+                throw new IllegalStateException("Calls to lazy proxies are delegated to their target");
+            })
+            .with(copy -> {
+                copy.target = target;
+                copy.lazy = true;
+                copy.skipConstructor = true;
+            });
     }
 
     /**
@@ -98,58 +482,74 @@ public class ProxyBuddy<T> {
      * @return  a new {@code ProxyBuddy} instance
      */
     public ProxyBuddy<T> withInterface(Class<?> interfaze) {
-        return new ProxyBuddy<>(superClass, cons(interfaze, interfaces), constructor, arguments, invocationHandler);
+        return with(copy -> copy.interfaces = cons(interfaze, interfaces));
+    }
+
+    /**
+     * Create a proxy implementing the given interface by delegating to {@code delegate}. The
+     * proxy class holds the delegate in a field of type {@code I} and each method of the
+     * interface is compiled into a direct call on that field. Calls to these methods never
+     * reach the invocation handler, interceptors or handlers added with
+     * {@link #onMethod(ElementMatcher, InvocationHandler)}, which only receive the calls to the
+     * methods of the super class and other interfaces. All proxies created by this {@code ProxyBuddy}
+     * instance share {@code delegate}.
+     * <pre>
+     * var proxy = new ProxyBuddy<>(MyClass.class, invocationHandler)
+     *     .withInterface(Interface1.class, new Interface1Impl())
+     *     .withInterface(Interface2.class, new Interface2Impl())
+     *     .createProxy();
+     * </pre>
+     * Methods of {@code Object} and methods the super class also declares are not delegated.
+     * @param interfaze  interface to implement
+     * @param delegate  instance receiving the calls to the methods of {@code interfaze}
+     * @return  a new {@code ProxyBuddy} instance
+     * @param <I>
+     */
+    public <I> ProxyBuddy<T> withInterface(Class<I> interfaze, I delegate) {
+        if (!interfaze.isInterface()) {
+            throw new IllegalArgumentException("Not an interface: " + interfaze);
+        }
+        Objects.requireNonNull(delegate);
+
+        return with(copy -> {
+            if (!toList(interfaces).contains(interfaze)) {
+                copy.interfaces = cons(interfaze, interfaces);
+            }
+            copy.mixins = cons(new Mixin<>(interfaze, delegate), mixins);
+        });
     }
 
     /**
      * Create a proxy with correct implementations for {@code equals} and {@code hashCode}.
      * With this implementation a proxy will never equal an instance of the proxied class.
+     * {@code equals} and {@code hashCode} are implemented by the proxy class itself and never
+     * reach the invocation handler.
      * @param witness  a object for witnessing the equality between a proxy and proxied instance.
      *                 The only requirement for the witness is to implement {@code equals} and
      *                 {@code hashCode} consistently with the proxied class.
      * @return  a new {@code ProxyBuddy} instance
      */
     public ProxyBuddy<T> withProxyNeverEqualsTarget(Object witness) {
-        return new ProxyBuddy<>(superClass, interfaces, constructor, arguments, (proxy, pipe, method, arguments) -> {
-            if ("equals".equals(method.getName())) {
-                interface Witness {
-                    Object get();
-                }
-
-                if (isProxy(arguments[0])) {
-                    return arguments[0].equals((Witness) () -> witness);
-                } else {
-                    if (arguments[0] instanceof Witness) {
-                        return witness.equals(((Witness) arguments[0]).get());
-                    } else {
-                        return false;
-                    }
-                }
-            } else if ("hashCode".equals(method.getName())) {
-                return 31 * witness.hashCode();
-            } else {
-                return invocationHandler.invoke(proxy, pipe, method, arguments);
-            }
+        return with(copy -> {
+            copy.equality = Equality.NEVER_EQUALS_TARGET;
+            copy.witness = witness;
         });
     }
 
     /**
      * Create a proxy with correct implementations for {@code equals} and {@code hashCode}.
      * With this implementation a may equal an instance of the proxied class.
+     * {@code equals} and {@code hashCode} are implemented by the proxy class itself and never
+     * reach the invocation handler.
      * @param witness  a object for witnessing the equality between a proxy and proxied instance.
      *                 The only requirement for the witness is to implement {@code equals} and
      *                 {@code hashCode} consistently with the proxied class.
      * @return  a new {@code ProxyBuddy} instance
      */
     public ProxyBuddy<T> withProxyCanEqualTarget(Object witness) {
-        return new ProxyBuddy<>(superClass, interfaces, constructor, arguments, (proxy,pipe, method, arguments) -> {
-            if ("equals".equals(method.getName())) {
-                return witness.equals(arguments[0]);
-            } else if ("hashCode".equals(method.getName())) {
-                return witness.hashCode();
-            } else {
-                return invocationHandler.invoke(proxy, pipe, method, arguments);
-            }
+        return with(copy -> {
+            copy.equality = Equality.CAN_EQUAL_TARGET;
+            copy.witness = witness;
         });
     }
 
@@ -161,72 +561,1603 @@ public class ProxyBuddy<T> {
      * @return
      */
     public ProxyBuddy<T> withConstructor(Constructor<T> constructor, Object... arguments) {
-        return new ProxyBuddy<>(superClass, interfaces, constructor, arguments, invocationHandler);
+        return with(copy -> {
+            copy.constructor = constructor;
+            copy.arguments = arguments;
+        });
     }
 
     /**
-     * Create a proxy for a class of type {@code T}
-     * @return  a new proxy instance of type {@code T}
-     * @throws IllegalAccessException
-     * @throws NoSuchMethodException
-     * @throws InvocationTargetException
-     * @throws InstantiationException
+     * Create a proxy that dispatches calls to the methods matched by {@code matcher} to
+     * {@code invocationHandler} instead of the invocation handler of this {@code ProxyBuddy}
+     * instance. The binding between methods and handlers is resolved once when the proxy
+     * class is generated. Each route is held in a field of the proxy class and each matched
+     * method calls the handler of its route from its own call site without any further
+     * dispatch on the called method. When multiple matchers match a method, the one passed
+     * to the last call to {@code onMethod} takes precedence. Methods of interfaces added with
+     * {@link #withInterface(Class, Object)} always go to their delegate and are not routed.
+     * <pre>
+     * var proxy = new ProxyBuddy<>(MyClass.class, defaultHandler)
+     *     .onMethod(named("method1"), (proxy, pipe, method, arguments) -> 1)
+     *     .onMethod(named("method2"), (proxy, pipe, method, arguments) -> 2)
+     *     .createProxy();
+     * </pre>
+     * Matchers are part of the shape of the proxy class. Proxy classes are only reused for
+     * matchers that implement {@code equals} and {@code hashCode}, as Byte Buddy's
+     * {@link net.bytebuddy.matcher.ElementMatchers} do.
+     * @param matcher  matcher selecting the methods dispatched to {@code invocationHandler}
+     * @param invocationHandler  handler receiving all calls to the matched methods
+     * @return  a new {@code ProxyBuddy} instance
+     * @throws IllegalArgumentException  if {@code invocationHandler} is a {@link SuperCallInvocationHandler}
+     *         or an {@link IndexedInvocationHandler}
      */
-    public T createProxy()
-    throws IllegalAccessException, NoSuchMethodException, InvocationTargetException, InstantiationException {
-        return new ByteBuddy()
-            .subclass(superClass)
-            .implement(toList(interfaces))
-            .method(isPublic())
-            .intercept(withDefaultConfiguration()
-                .withBinders(install(Function.class))
-                .toField("INVOKER"))
-            .defineField("INVOKER", Invoker.class, PRIVATE)
-            .defineConstructor(PUBLIC)
-                .withParameters(Invoker.class)
-                .intercept((constructor == null
-                    ? invoke(superClass.getConstructor())
-                    : invoke(constructor).with(arguments))
-                .andThen(FieldAccessor.ofField("INVOKER").setsArgumentAt(0)))
-            .make()
-            .load(superClass.getClassLoader(), UsingLookup.of(privateLookupIn(superClass, lookup())))
-            .getLoaded()
-        .getConstructor(Invoker.class)
-            .newInstance(new Invoker<>(invocationHandler));
+    public ProxyBuddy<T> onMethod(
+            ElementMatcher<? super MethodDescription> matcher,
+            InvocationHandler<T> invocationHandler) {
+        if (invocationHandler instanceof SuperCallInvocationHandler
+                || invocationHandler instanceof IndexedInvocationHandler) {
+            throw new IllegalArgumentException(
+                "Methods dispatched through onMethod do not receive super calls or method indexes");
+        }
+        return with(copy -> copy.routes = cons(new Route<>(matcher, invocationHandler), routes));
     }
 
     /**
-     * Helper method to determine whether an instance is a proxy created through {@code ProxyBuddy}.
-     * @param object  an instance to check
-     * @return  {@code true} if and only if {@code object} is a proxy created by {@code ProxyBuddy}.
+     * Create a proxy that only overrides the methods matched by {@code matcher}. All other
+     * methods are inherited from the super class as is and calls to them do not reach any
+     * invocation handler. Abstract methods are always overridden as there is nothing to
+     * inherit. {@code equals} and {@code hashCode} are always overridden for proxies with
+     * equality witnesses. Repeated calls to {@code intercepting} and {@link #passThrough(ElementMatcher)}
+     * further restrict the set of overridden methods.
+     * <pre>
+     * var proxy = new ProxyBuddy<>(MyClass.class, invocationHandler)
+     *     .intercepting(named("method1").or(named("method2")))
+     *     .createProxy();
+     * </pre>
+     * Like those of {@link #onMethod(ElementMatcher, InvocationHandler)}, matchers are part of the
+     * shape of the proxy class.
+     * @param matcher  matcher selecting the methods to override
+     * @return  a new {@code ProxyBuddy} instance
      */
-    public static boolean isProxy(Object object) {
-        return object instanceof ProxyBuddyProxy;
+    public ProxyBuddy<T> intercepting(ElementMatcher<? super MethodDescription> matcher) {
+        return with(copy -> copy.interception = interception == null
+            ? ElementMatchers.<MethodDescription>any().and(matcher)
+            : interception.and(matcher));
     }
 
     /**
-     * Marker interface for {@code ProxyBuddy} proxies.
+     * Create a proxy that does not override the methods matched by {@code matcher}. See
+     * {@link #intercepting(ElementMatcher)}.
+     * @param matcher  matcher selecting the methods not to override
+     * @return  a new {@code ProxyBuddy} instance
      */
-    public interface ProxyBuddyProxy {}
+    public ProxyBuddy<T> passThrough(ElementMatcher<? super MethodDescription> matcher) {
+        return intercepting(not(matcher));
+    }
 
     /**
-     * Internal helper class for delegating method calls from a proxy instance to
-     * the {@link InvocationHandler}.
-     * @param <T>
+     * Create a proxy that passes calls to all methods through {@code interceptors} before they
+     * reach the invocation handler. See {@link #interceptMethods(ElementMatcher, Interceptor[])}.
+     * @param interceptors  interceptors in the order they see calls
+     * @return  a new {@code ProxyBuddy} instance
      */
-    public static final class Invoker<T> {
+    @SafeVarargs
+    public final ProxyBuddy<T> intercept(Interceptor<T>... interceptors) {
+        return interceptMethods(any(), interceptors);
+    }
 
-        private final InvocationHandler<T> invocationHandler;
+    /**
+     * Create a proxy that passes calls to the methods matched by {@code matcher} through
+     * {@code interceptors} before they reach the invocation handler. Interceptors see calls in
+     * the order they were added. The interceptors applying to each method are determined once
+     * when the proxy class is generated, such that each method calls a prebuilt chain of
+     * exactly its interceptors. The first four positions of a chain each call their interceptor
+     * from a call site of their own, which the JIT can inline as long as the same interceptor is
+     * at that position throughout. Interceptors wrap calls dispatched to the invocation handler of
+     * this {@code ProxyBuddy} instance, including super calls with {@link #withSuperCall()}. They
+     * do not apply to methods dispatched to other handlers through
+     * {@link #onMethod(ElementMatcher, InvocationHandler)}, to delegating proxies or to equality
+     * witnesses. Like those of {@code onMethod}, matchers are part of the shape of the proxy class.
+     * <pre>
+     * var proxy = new ProxyBuddy<>(MyClass.class, invocationHandler)
+     *     .intercept(logging)
+     *     .interceptMethods(named("method1"), retrying, timing)
+     *     .createProxy();
+     * </pre>
+     * @param matcher  matcher selecting the methods to intercept
+     * @param interceptors  interceptors in the order they see calls
+     * @return  a new {@code ProxyBuddy} instance
+     */
+    @SafeVarargs
+    public final ProxyBuddy<T> interceptMethods(
+            ElementMatcher<? super MethodDescription> matcher,
+            Interceptor<T>... interceptors) {
+        return with(copy -> {
+            for (var interceptor : interceptors) {
+                copy.interceptors = cons(new InterceptorBinding<>(matcher, () -> interceptor), copy.interceptors);
+            }
+        });
+    }
 
-        private Invoker(InvocationHandler<T> invocationHandler) {
-            this.invocationHandler = invocationHandler;
-        }
+    /**
+     * Create a proxy that caches the results of the methods matched by {@code matcher} keyed
+     * on their arguments. Only calls whose arguments are not in the cache reach the invocation
+     * handler. Each proxy has its own cache per method, bounded by {@code policy}, which also
+     * collects hit, miss and eviction statistics. Arguments are compared with {@code equals},
+     * arrays by their contents. Calls throwing an exception are not cached.
+     * <p>
+     * Memoization is implemented as an interceptor that sees calls in the order it was added
+     * relative to other interceptors. See {@link #interceptMethods(ElementMatcher, Interceptor[])}.
+     * <pre>
+     * var proxy = new ProxyBuddy<>(MyClass.class, invocationHandler)
+     *     .withMemoization(named("lookup"), CachePolicy.maximumSize(1000))
+     *     .createProxy();
+     * </pre>
+     * @param matcher  matcher selecting the methods to memoize
+     * @param policy  bounds and statistics of the caches
+     * @return  a new {@code ProxyBuddy} instance
+     */
+    public ProxyBuddy<T> withMemoization(ElementMatcher<? super MethodDescription> matcher, CachePolicy policy) {
+        return with(copy -> copy.interceptors =
+            cons(new InterceptorBinding<>(matcher, () -> new Memoizer<>(policy)), interceptors));
+    }
 
-        @RuntimeType
-        public Object delegate(@This T proxy, @Pipe Function<T, Object> pipe, @Origin Method method, @AllArguments Object[] args)
-        throws Exception {
-            return invocationHandler.invoke(proxy, pipe, method, args);
+    /**
+     * Create a proxy that buffers calls to the {@code void} methods matched by {@code matcher}
+     * and returns to the caller immediately. Buffered calls are flushed in batches to
+     * {@code batchHandler} from a background thread when {@code policy} says so. Calls to
+     * methods returning values are not batched. All proxies created from the returned
+     * {@code ProxyBuddy} instance share the same buffer.
+     * <p>
+     * Batching is implemented as an interceptor. Interceptors added before it see calls on the
+     * calling thread, interceptors added after it when the batch handler proceeds with a call.
+     * See {@link #interceptMethods(ElementMatcher, Interceptor[])}.
+     * <pre>
+     * var proxy = new ProxyBuddy<>(Sink.class, invocationHandler)
+     *     .withBatching(named("emit"), BatchPolicy.maxBatchSize(100), invocations ->
+     *         sink.emitAll(invocations.stream().map(invocation -> invocation.arguments()[0]).toList()))
+     *     .createProxy();
+     * </pre>
+     * @param matcher  matcher selecting the methods to batch
+     * @param policy  thresholds and backpressure of the buffer
+     * @param batchHandler  handler receiving the batches
+     * @return  a new {@code ProxyBuddy} instance
+     */
+    public ProxyBuddy<T> withBatching(
+            ElementMatcher<? super MethodDescription> matcher,
+            BatchPolicy policy,
+            BatchHandler<T> batchHandler) {
+        var batcher = new Batcher<>(policy, batchHandler);
+        return with(copy -> copy.interceptors = cons(
+            new InterceptorBinding<>(ElementMatchers.<MethodDescription>returns(void.class).and(matcher), () -> batcher),
+            interceptors));
+    }
+
+    /**
+     * Create a proxy that limits the number of concurrent calls to each of the methods matched by
+     * {@code matcher}. Each call holds a permit of {@code limit} while it proceeds to the
+     * invocation handler. Calls finding all permits taken are rejected or wait depending on the
+     * {@link ConcurrencyLimit.Overflow} policy of {@code limit}. Proxies sharing the same
+     * {@code limit} share its permits.
+     * <p>
+     * The concurrency limit is implemented as an interceptor, which sees calls in the order it
+     * was added relative to other interceptors. See {@link #interceptMethods(ElementMatcher, Interceptor[])}.
+     * <pre>
+     * var proxy = new ProxyBuddy<>(Client.class, invocationHandler)
+     *     .withConcurrencyLimit(named("fetch"), ConcurrencyLimit.of(32))
+     *     .createProxy();
+     * </pre>
+     * @param matcher  matcher selecting the methods to limit
+     * @param limit  permits and overflow policy
+     * @return  a new {@code ProxyBuddy} instance
+     */
+    public ProxyBuddy<T> withConcurrencyLimit(ElementMatcher<? super MethodDescription> matcher, ConcurrencyLimit limit) {
+        var bulkhead = new Bulkhead<T>(limit);
+        return with(copy -> copy.interceptors = cons(new InterceptorBinding<>(matcher, () -> bulkhead), interceptors));
+    }
+
+    /**
+     * Create a proxy that returns a {@link CompletableFuture} immediately from methods returning
+     * {@link CompletableFuture} or {@link CompletionStage} and calls the invocation handler on a
+     * virtual thread. On runtimes without virtual threads it is called on a shared cached pool
+     * of daemon threads, such that blocking handlers do not starve the common
+     * {@link ForkJoinPool}. See {@link #withAsyncDispatch(Executor)}.
+     * @return  a new {@code ProxyBuddy} instance
+     */
+    public ProxyBuddy<T> withAsyncDispatch() {
+        return withAsyncDispatch(AsyncDispatcher.defaultExecutor());
+    }
+
+    /**
+     * Create a proxy that returns a {@link CompletableFuture} immediately from methods returning
+     * {@link CompletableFuture} or {@link CompletionStage} and calls the invocation handler on
+     * {@code executor}. The future completes with the value returned by the invocation handler
+     * or, if that is a {@code CompletionStage}, with its value. Exceptions thrown by the
+     * invocation handler complete the future exceptionally instead of being thrown to the caller.
+     * <p>
+     * Asynchronous dispatch is implemented as an interceptor. Interceptors added after it run on
+     * {@code executor}. See {@link #interceptMethods(ElementMatcher, Interceptor[])}.
+     * <pre>
+     * var proxy = new ProxyBuddy<>(Client.class, (proxy, pipe, method, arguments) -> blockingFetch(arguments))
+     *     .withAsyncDispatch()
+     *     .createProxy();
+     *
+     * CompletableFuture<Response> response = proxy.fetch(request);
+     * </pre>
+     * @param executor  executor running the invocation handler
+     * @return  a new {@code ProxyBuddy} instance
+     */
+    public ProxyBuddy<T> withAsyncDispatch(Executor executor) {
+        var dispatcher = new AsyncDispatcher<T>(executor);
+        return with(copy -> copy.interceptors = cons(
+            new InterceptorBinding<>(returns(anyOf(CompletableFuture.class, CompletionStage.class)), () -> dispatcher),
+            interceptors));
+    }
+
+    /**
+     * Create a proxy that delegates all calls to public methods of the super class to
+     * {@code target}. See {@link #delegatingTo(Supplier)}.
+     * @param target  target receiving the calls to the proxy
+     * @return  a new {@code ProxyBuddy} instance
+     */
+    public ProxyBuddy<T> withTarget(T target) {
+        return delegatingTo(() -> target);
+    }
+
+    /**
+     * Create a proxy that delegates all calls to public methods of the super class to a target
+     * obtained from {@code target} when the proxy is created. The proxy class stores the target
+     * in a field and calls the target's method directly, without going through an invocation
+     * handler. Methods of interfaces added through {@link #withInterface(Class)} and methods
+     * matched by {@link #onMethod(ElementMatcher, InvocationHandler)} are still dispatched to
+     * their invocation handlers.
+     * @param target  supplier for the target receiving the calls to the proxy
+     * @return  a new {@code ProxyBuddy} instance
+     */
+    public ProxyBuddy<T> delegatingTo(Supplier<? extends T> target) {
+        return with(copy -> {
+            copy.target = target;
+            copy.lazy = false;
+            copy.delegationHook = null;
+        });
+    }
+
+    /**
+     * Create a proxy that delegates all calls to public methods of the super class to a target
+     * obtained from {@code target} and calls {@code hook} before and after each delegated call.
+     * See {@link #delegatingTo(Supplier)}.
+     * @param target  supplier for the target receiving the calls to the proxy
+     * @param hook  hook called before and after each delegated call
+     * @return  a new {@code ProxyBuddy} instance
+     */
+    public ProxyBuddy<T> delegatingTo(Supplier<? extends T> target, DelegationHook<T> hook) {
+        return with(copy -> {
+            copy.target = target;
+            copy.lazy = false;
+            copy.delegationHook = hook;
+        });
+    }
+
+    /**
+     * Create a proxy that dispatches calls to methods with primitive signatures to
+     * {@link PrimitiveInvocationHandler#invoke(Object, Method, long, long)} without boxing
+     * arguments or return values. The invocation handlers of such proxies must implement
+     * {@link PrimitiveInvocationHandler}. Primitive dispatch cannot be combined with interceptors,
+     * which receive their calls boxed.
+     * @return  a new {@code ProxyBuddy} instance
+     */
+    public ProxyBuddy<T> withPrimitiveDispatch() {
+        return with(copy -> copy.primitiveDispatch = true);
+    }
+
+    /**
+     * Create a proxy that dispatches calls to
+     * {@link SuperCallInvocationHandler#invoke(Object, Callable, Method, Object...)}, passing
+     * a {@link Callable} for invoking the super class implementation of the called method on the
+     * proxy itself instead of a pipe to a separate target. The invocation handlers of such
+     * proxies must implement {@link SuperCallInvocationHandler}.
+     * <pre>
+     * var proxy = new ProxyBuddy<>(MyClass.class, (SuperCallInvocationHandler<MyClass>)
+     *         (proxy, superCall, method, arguments) -> {
+     *             log(method);
+     *             return superCall.call();
+     *         })
+     *     .withSuperCall()
+     *     .createProxy();
+     * </pre>
+     * @return  a new {@code ProxyBuddy} instance
+     */
+    public ProxyBuddy<T> withSuperCall() {
+        return with(copy -> copy.superCall = true);
+    }
+
+    /**
+     * Create a proxy that dispatches calls to
+     * {@link IndexedInvocationHandler#invoke(Object, Function, int, Object...)}, passing the index
+     * of the called method instead of the reflective {@link Method}. The table mapping indexes to
+     * methods is generated into the proxy class and available through {@link ProxyMethods#of(Class)}.
+     * The invocation handlers of such proxies must implement {@link IndexedInvocationHandler}.
+     * Method indexes cannot be combined with {@link #withSuperCall()} or interceptors.
+     * <pre>
+     * var proxy = new ProxyBuddy<>(MyClass.class, (IndexedInvocationHandler<MyClass>)
+     *         (proxy, pipe, method, arguments) -> {
+     *             counts[method].increment();
+     *             return pipe.apply(target);
+     *         })
+     *     .withMethodIndex()
+     *     .createProxy();
+     * </pre>
+     * @return  a new {@code ProxyBuddy} instance
+     */
+    public ProxyBuddy<T> withMethodIndex() {
+        return with(copy -> copy.methodIndex = true);
+    }
+
+    /**
+     * Create a proxy that records its calls to {@code recorder}, which keeps the most recent
+     * calls in a ring buffer for inspecting them when debugging. Recording neither locks nor
+     * allocates. Calls dispatched to invocation handlers are recorded, including calls dispatched
+     * through interceptors, with {@link #withSuperCall()} and to the handlers of
+     * {@link #onMethod(ElementMatcher, InvocationHandler)}. Calls dispatched through
+     * {@link #withPrimitiveDispatch()}, {@link #withMethodIndex()} or to a target are not.
+     * <pre>
+     * var recorder = CallRecorder.ofCapacity(1024);
+     * var proxy = new ProxyBuddy<>(MyClass.class, invocationHandler)
+     *     .withRecorder(recorder)
+     *     .createProxy();
+     * </pre>
+     * @param recorder  recorder receiving the calls
+     * @return  a new {@code ProxyBuddy} instance
+     */
+    public ProxyBuddy<T> withRecorder(CallRecorder recorder) {
+        return with(copy -> copy.recorder = recorder);
+    }
+
+    /**
+     * Create a proxy that records call counts and latencies of its methods to {@code metrics}.
+     * The instrumentation is only generated into proxy classes created with this option, such
+     * that proxies without metrics do not pay for it.
+     * @param metrics  registry receiving the metrics
+     * @return  a new {@code ProxyBuddy} instance
+     */
+    public ProxyBuddy<T> withMetrics(ProxyMetrics metrics) {
+        return with(copy -> copy.metrics = metrics);
+    }
+
+    /**
+     * Create a proxy whose class is defined by a dedicated class loader instead of the class
+     * loader of the super class. Such proxy classes are unloaded and their Metaspace reclaimed
+     * once all proxies and {@link ProxyFactory factories} of their shape are unreachable, while
+     * other proxy classes live as long as the class loader of their super class. As the proxy
+     * class is in a different runtime package than its super class, the super class, its
+     * constructor and all interfaces must be public or the constructor protected.
+     * @return  a new {@code ProxyBuddy} instance
+     */
+    public ProxyBuddy<T> withCollectibleClass() {
+        return with(copy -> copy.collectible = true);
+    }
+
+    /**
+     * Create proxies without running any constructor of the super class. Proxy instances are
+     * allocated through a serialization constructor, which only runs the constructor of
+     * {@code Object}, and then only get the fields of the proxy class itself initialised.
+     * This avoids the cost of expensive constructors and the memory they allocate for proxies
+     * that never touch the state of their super class, such as proxies whose invocation handler
+     * handles all calls. Fields of the super class keep their default values. The super class
+     * need not have an accessible or a no argument constructor and a constructor configured with
+     * {@link #withConstructor(Constructor, Object...)} is not run. As the fields of such proxies
+     * are not final, proxies must be published safely when shared between threads.
+     * <pre>
+     * var proxy = new ProxyBuddy<>(ExpensiveClass.class, invocationHandler)
+     *     .withoutSuperConstructor()
+     *     .createProxy();
+     * </pre>
+     * @return  a new {@code ProxyBuddy} instance
+     */
+    public ProxyBuddy<T> withoutSuperConstructor() {
+        return with(copy -> copy.skipConstructor = true);
+    }
+
+    /**
+     * Create a proxy for a class of type {@code T}. Proxy classes are generated once per shape
+     * and then reused from the {@link ProxyClassCache}. Use {@link #buildFactory()} for creating
+     * many proxies of the same shape.
+     * @return  a new proxy instance of type {@code T}
+     * @throws IllegalAccessException
+     * @throws NoSuchMethodException
+     * @throws InvocationTargetException
+     * @throws InstantiationException
+     */
+    public T createProxy()
+    throws IllegalAccessException, NoSuchMethodException, InvocationTargetException, InstantiationException {
+        return buildFactory().newInstance(invocationHandler);
+    }
+
+    /**
+     * Create {@code count} proxies for a class of type {@code T}. The proxy class is looked up
+     * or generated once and all proxies are created through its pre-resolved constructor. See
+     * {@link ProxyFactory#newInstances(int, IntFunction)}.
+     * @param count  number of proxies to create
+     * @param invocationHandlers  function returning the handler receiving all calls to the proxy
+     *                            at the given index
+     * @return  an unmodifiable list of the new proxy instances in index order
+     * @throws IllegalAccessException
+     * @throws NoSuchMethodException
+     * @throws InvocationTargetException
+     */
+    public List<T> createProxies(int count, IntFunction<? extends InvocationHandler<T>> invocationHandlers)
+    throws IllegalAccessException, NoSuchMethodException, InvocationTargetException {
+        return buildFactory().newInstances(count, invocationHandlers);
+    }
+
+    /**
+     * Stream of {@code count} proxies for a class of type {@code T}, which can be made
+     * {@link Stream#parallel() parallel} for very large batches. See
+     * {@link ProxyFactory#newInstanceStream(int, IntFunction)}.
+     * @param count  number of proxies to create
+     * @param invocationHandlers  function returning the handler receiving all calls to the proxy
+     *                            at the given index
+     * @return  a stream of new proxy instances in index order
+     * @throws IllegalAccessException
+     * @throws NoSuchMethodException
+     */
+    public Stream<T> createProxyStream(int count, IntFunction<? extends InvocationHandler<T>> invocationHandlers)
+    throws IllegalAccessException, NoSuchMethodException {
+        return buildFactory().newInstanceStream(count, invocationHandlers);
+    }
+
+    /**
+     * Create a {@link ProxyFactory} for creating proxies of the shape configured by this
+     * {@code ProxyBuddy} instance. The factory generates and loads the proxy class once
+     * and then only pays for a constructor call per proxy instance.
+     * @return  a new {@code ProxyFactory} instance
+     * @throws IllegalAccessException
+     * @throws NoSuchMethodException
+     */
+    public ProxyFactory<T> buildFactory() throws IllegalAccessException, NoSuchMethodException {
+        if (superClass.isPrimitive() || superClass.isArray() || Modifier.isFinal(superClass.getModifiers())) {
+            throw new IllegalArgumentException("Cannot subclass primitive, array or final types: " + superClass);
+        }
+
+        var constructor = superConstructor();
+        if (toList(interceptors).size() > MAX_INTERCEPTORS) {
+            throw new IllegalArgumentException("Proxies support at most " + MAX_INTERCEPTORS + " interceptors");
+        }
+        if (collectible && !isAccessibleFromOtherPackages(constructor)) {
+            throw new IllegalArgumentException(
+                "Collectible proxy classes require public types and a public or protected constructor: " + constructor);
+        }
+
+        var shape = shape(constructor);
+        var proxyClass = ProxyClassCache.findOrGenerate(
+            superClass.getClassLoader(),
+            shape,
+            collectible,
+            () -> loadProxyClass(shape, constructor));
+
+        var proxyConstructor = constructor == null
+            ? allocatingConstructor(proxyClass)
+            : privateLookupIn(superClass, lookup())
+                .findConstructor(proxyClass, methodType(void.class, Invoker.class)
+                    .appendParameterTypes(constructor.getParameterTypes()));
+
+        return new ProxyFactory<>(this, proxyClass.asSubclass(superClass), proxyConstructor);
+    }
+
+    /**
+     * Handle of type {@code (Invoker)proxyClass} allocating an instance of {@code proxyClass}
+     * through a serialization constructor and initialising it with {@link #INITIALIZE}.
+     */
+    private MethodHandle allocatingConstructor(Class<?> proxyClass) throws IllegalAccessException, NoSuchMethodException {
+        Constructor<?> allocator;
+        try {
+            allocator = (Constructor<?>) SerializationConstructors.NEW_CONSTRUCTOR
+                .invokeExact(proxyClass, Object.class.getConstructor());
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot create serialization constructor for " + proxyClass, e);
+        }
+
+        // The serialization constructor presents itself as the constructor of Object such that
+        // unreflectConstructor would resolve to that. Its newInstance is bound once instead.
+        var allocate = MethodHandles.insertArguments(
+                lookup().unreflect(Constructor.class.getMethod("newInstance", Object[].class)),
+                0, allocator, new Object[0])
+            .asType(methodType(proxyClass));
+
+        var initialize = privateLookupIn(superClass, lookup())
+            .findVirtual(proxyClass, INITIALIZE, methodType(void.class, Invoker.class));
+
+        // (proxy, invoker) -> { proxy.INITIALIZE(invoker); return proxy; } with proxy = allocate()
+        var initialized = MethodHandles.foldArguments(
+            MethodHandles.dropArguments(MethodHandles.identity(proxyClass), 1, Invoker.class),
+            initialize);
+        return MethodHandles.collectArguments(initialized, 0, allocate);
+    }
+
+    /**
+     * {@code sun.reflect.ReflectionFactory} is looked up reflectively on first use as it is an
+     * unsupported internal API.
+     */
+    private static final class SerializationConstructors {
+        // (Class, Constructor)Constructor
+        static final MethodHandle NEW_CONSTRUCTOR = newConstructorForSerialization();
+
+        private static MethodHandle newConstructorForSerialization() {
+            try {
+                var reflectionFactory = Class.forName("sun.reflect.ReflectionFactory");
+                return lookup()
+                    .findVirtual(reflectionFactory, "newConstructorForSerialization",
+                        methodType(Constructor.class, Class.class, Constructor.class))
+                    .bindTo(reflectionFactory.getMethod("getReflectionFactory").invoke(null));
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+    }
+
+    /**
+     * Asynchronously create a {@link ProxyFactory} on {@code executor}. See {@link #buildFactory()}.
+     * @param executor  executor for generating and loading the proxy class
+     * @return  a future completing with a new {@code ProxyFactory} instance or exceptionally with
+     *          the exception thrown by {@link #buildFactory()}
+     */
+    public CompletableFuture<ProxyFactory<T>> buildFactoryAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return buildFactory();
+            } catch (IllegalAccessException | NoSuchMethodException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Generate and load the proxy classes for the shapes of {@code proxyBuddies} in parallel on
+     * {@code executor}. The classes end up in the same {@link ProxyClassCache} consulted by
+     * {@link #createProxy()} and {@link #buildFactory()} such that later calls for these shapes
+     * do not pay for class generation. Call this at application startup to keep class generation
+     * off latency sensitive threads.
+     * <pre>
+     * var futures = ProxyBuddy.prewarm(List.of(
+     *     new ProxyBuddy<>(MyClass1.class, invocationHandler),
+     *     new ProxyBuddy<>(MyClass2.class, invocationHandler).withInterface(Interface1.class)),
+     *     executor);
+     * CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+     * </pre>
+     * @param proxyBuddies  {@code ProxyBuddy} instances configuring the shapes to generate
+     * @param executor  executor for generating and loading the proxy classes
+     * @return  a future per {@code ProxyBuddy} instance in iteration order of {@code proxyBuddies}.
+     *          See {@link #buildFactoryAsync(Executor)}.
+     */
+    public static List<CompletableFuture<? extends ProxyFactory<?>>> prewarm(
+            Collection<? extends ProxyBuddy<?>> proxyBuddies,
+            Executor executor) {
+        var futures = new ArrayList<CompletableFuture<? extends ProxyFactory<?>>>(proxyBuddies.size());
+        for (var proxyBuddy : proxyBuddies) {
+            futures.add(proxyBuddy.buildFactoryAsync(executor));
+        }
+        return futures;
+    }
+
+    /**
+     * Generate and load the proxy classes for the shapes of {@code proxyBuddies} in parallel on
+     * the {@link ForkJoinPool#commonPool() common pool}. See {@link #prewarm(Collection, Executor)}.
+     * @param proxyBuddies  {@code ProxyBuddy} instances configuring the shapes to generate
+     * @return  a future per {@code ProxyBuddy} instance in iteration order of {@code proxyBuddies}.
+     */
+    public static List<CompletableFuture<? extends ProxyFactory<?>>> prewarm(
+            Collection<? extends ProxyBuddy<?>> proxyBuddies) {
+        return prewarm(proxyBuddies, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Generate the proxy class for the shape configured by this {@code ProxyBuddy} instance
+     * ahead of time and write it together with its auxiliary classes as class files to
+     * {@code directory}. The proxy class gets a name derived from its shape. When such a
+     * class is found by the class loader of the super class at runtime, {@link #buildFactory()}
+     * uses it instead of generating a new proxy class. Proxies configured with method matchers
+     * through {@link #onMethod(ElementMatcher, InvocationHandler)}, {@link #intercepting(ElementMatcher)},
+     * {@link #passThrough(ElementMatcher)} or interceptors cannot be generated ahead of time as their
+     * matchers have no stable name. Neither can {@link #withCollectibleClass() collectible} proxies.
+     * @param directory  root directory of the class files
+     * @return  the name of the proxy class
+     * @throws IOException
+     * @throws NoSuchMethodException
+     */
+    public String saveProxyClass(File directory) throws IOException, NoSuchMethodException {
+        var constructor = superConstructor();
+        var name = shape(constructor).proxyClassName();
+        if (name == null) {
+            throw new IllegalArgumentException(
+                "Cannot generate collectible proxies or proxies with method matchers ahead of time");
+        }
+
+        makeProxyClass(constructor, name).saveIn(directory);
+        return name;
+    }
+
+    private Shape shape(Constructor<T> constructor) {
+        var constructorParameters = constructor == null
+            ? List.<String>of()
+            : toNames(constructor.getParameterTypes());
+        return new Shape(superClass.getName(), toNames(interfaces), constructorParameters,
+            primitiveDispatch, equality, routeMatchers(), mixinTypeNames(), target != null, lazy, delegationHook != null,
+            metrics != null, collectible, interception, superCall, interceptorMatchers(), methodIndex, skipConstructor);
+    }
+
+    private Class<?> loadProxyClass(Shape shape, Constructor<T> constructor) throws IllegalAccessException {
+        if (collectible) {
+            // A new class loader per proxy class, which is only reachable through the proxy class
+            return makeProxyClass(constructor, null)
+                .load(superClass.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+                .getLoaded();
+        }
+
+        var pregenerated = pregeneratedProxyClass(shape);
+        return pregenerated == null
+            ? makeProxyClass(constructor, null)
+                .load(superClass.getClassLoader(), UsingLookup.of(privateLookupIn(superClass, lookup())))
+                .getLoaded()
+            : pregenerated;
+    }
+
+    private boolean isAccessibleFromOtherPackages(Constructor<T> constructor) {
+        if (!Modifier.isPublic(superClass.getModifiers())) {
+            return false;
+        }
+        if (constructor != null
+                && !Modifier.isPublic(constructor.getModifiers()) && !Modifier.isProtected(constructor.getModifiers())) {
+            return false;
+        }
+        for (var interfaze : toList(interfaces)) {
+            if (!Modifier.isPublic(interfaze.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Class<?> pregeneratedProxyClass(Shape shape) {
+        var classLoader = superClass.getClassLoader();
+        var name = shape.proxyClassName();
+        if (classLoader == null || name == null) {
+            return null;
+        }
+
+        try {
+            var proxyClass = Class.forName(name, false, classLoader);
+            return proxyClass.getSuperclass() == superClass && ProxyBuddyProxy.class.isAssignableFrom(proxyClass)
+                ? proxyClass
+                : null;
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private List<ElementMatcher<? super MethodDescription>> routeMatchers() {
+        var matchers = new ArrayList<ElementMatcher<? super MethodDescription>>();
+        for (var route : toList(routes)) {
+            matchers.add(0, route.matcher);
+        }
+        return matchers;
+    }
+
+    private List<Class<?>> mixinTypes() {
+        var types = new ArrayList<Class<?>>();
+        for (var mixin : toList(mixins)) {
+            types.add(0, mixin.type);
+        }
+        return types;
+    }
+
+    private List<String> mixinTypeNames() {
+        return toNames(mixinTypes().toArray(Class<?>[]::new));
+    }
+
+    private List<ElementMatcher<? super MethodDescription>> interceptorMatchers() {
+        var matchers = new ArrayList<ElementMatcher<? super MethodDescription>>();
+        for (var interceptor : toList(interceptors)) {
+            matchers.add(0, interceptor.matcher);
+        }
+        return matchers;
+    }
+
+    Object[] arguments() {
+        return skipConstructor
+            ? new Object[]{}
+            : arguments;
+    }
+
+    Invoker<T> newInvoker(InvocationHandler<T> invocationHandler) {
+        if (primitiveDispatch && !(invocationHandler instanceof PrimitiveInvocationHandler)) {
+            throw new IllegalArgumentException(
+                "Proxies with primitive dispatch require a " + PrimitiveInvocationHandler.class.getName());
+        }
+        if (superCall && !(invocationHandler instanceof SuperCallInvocationHandler)) {
+            throw new IllegalArgumentException(
+                "Proxies with super calls require a " + SuperCallInvocationHandler.class.getName());
+        }
+        if (primitiveDispatch && interceptors != null) {
+            throw new IllegalArgumentException(
+                "Primitive dispatch cannot be combined with interceptors");
+        }
+        if (!superCall && invocationHandler instanceof SuperCallInvocationHandler) {
+            throw new IllegalArgumentException(
+                "A " + SuperCallInvocationHandler.class.getName() + " requires proxies with super calls");
+        }
+        if (methodIndex && !(invocationHandler instanceof IndexedInvocationHandler)) {
+            throw new IllegalArgumentException(
+                "Proxies with method index require a " + IndexedInvocationHandler.class.getName());
+        }
+        if (!methodIndex && invocationHandler instanceof IndexedInvocationHandler) {
+            throw new IllegalArgumentException(
+                "An " + IndexedInvocationHandler.class.getName() + " requires proxies with method index");
+        }
+        if (methodIndex && (superCall || interceptors != null)) {
+            throw new IllegalArgumentException(
+                "Method index cannot be combined with super calls or interceptors");
+        }
+
+        return new Invoker<>(this, invocationHandler);
+    }
+
+    /**
+     * @return  the constructor of the super class run by the constructor of the proxy class or
+     *          {@code null} if proxies are created {@link #withoutSuperConstructor() without} one
+     */
+    private Constructor<T> superConstructor() throws NoSuchMethodException {
+        if (skipConstructor) {
+            return null;
+        }
+        return constructor == null
+            ? superClass.getConstructor()
+            : constructor;
+    }
+
+    private DynamicType.Unloaded<T> makeProxyClass(Constructor<T> constructor, String name) {
+        // Proxy classes generated ahead of time get stable names for them and their auxiliary
+        // classes such that regenerating them overwrites the previous class files
+        var byteBuddy = name == null
+            ? new ByteBuddy()
+            : new ByteBuddy().with(new AuxiliaryType.NamingStrategy.Suffixing("auxiliary"));
+
+        // Proxy classes without super constructor have no constructor at all such that
+        // they do not depend on the constructors of their super class
+        DynamicType.Builder<T> builder = byteBuddy
+            .subclass(superClass, constructor == null
+                ? ConstructorStrategy.Default.NO_CONSTRUCTORS
+                : ConstructorStrategy.Default.IMITATE_SUPER_CLASS_OPENING)
+            .implement(toList(interfaces));
+
+        if (name != null) {
+            builder = builder.name(name);
+        }
+
+        ElementMatcher.Junction<MethodDescription> overridden = isPublic();
+        if (interception != null) {
+            overridden = overridden.and(ElementMatchers.<MethodDescription>isAbstract().or(interception));
+        }
+
+        builder = builder
+            .method(overridden)
+            .intercept(superCall
+                ? withDefaultConfiguration().filter(named("invokeSuper")).toField("INVOKER")
+                : delegateTo("INVOKER"));
+
+        if (methodIndex) {
+            // Dense indexes in the order of the method table, which is initialised from
+            // the type initializer and thus also available for classes generated ahead of time
+            var methods = overriddenMethods(overridden);
+            var indexes = new HashMap<MethodDescription.SignatureToken, Integer>();
+            for (var method : methods) {
+                indexes.put(method.asSignatureToken(), indexes.size());
+            }
+
+            builder = builder
+                .method(overridden)
+                .intercept(withDefaultConfiguration()
+                    .withBinders(install(Function.class), new ProxyMethods.IndexBinder(indexes))
+                    .filter(named("invokeIndexed"))
+                    .toField("INVOKER"))
+                .defineField(ProxyMethods.FIELD, ProxyMethods.class, PUBLIC, Ownership.STATIC, FINAL)
+                .initializer(initializeProxyMethods(methods));
+        }
+
+        if (primitiveDispatch) {
+            for (var returnType : PRIMITIVE_RETURN_TYPES) {
+                for (int arity = 0; arity <= 2; arity++) {
+                    builder = builder
+                        .method(overridden.and(not(isHashCode())).and(hasPrimitiveSignature(returnType, arity)))
+                        .intercept(withDefaultConfiguration()
+                            .filter(named("invoke" + capitalize(returnType.getName())).and(takesArguments(arity + 2)))
+                            .toField("INVOKER"));
+                }
+            }
+        }
+
+        Implementation.Composable initializer = FieldAccessor.ofField("INVOKER").setsArgumentAt(0);
+
+        // One chain per distinct set of interceptors applying to some method. The set is
+        // passed to the invoker as bit mask over the interceptors.
+        var interceptorMatchers = interceptorMatchers();
+        var chains = 0;
+        for (var mask : interceptorMasks(overridden, interceptorMatchers)) {
+            var field = "CHAIN$" + chains++;
+            builder = builder
+                .method(overridden.and(hasInterceptorMask(mask, interceptorMatchers)))
+                .intercept(withDefaultConfiguration()
+                    .withBinders(install(Function.class))
+                    .filter(named(superCall ? "interceptSuper" : "intercept"))
+                    .toField(field))
+                .defineField(field, Invoker.class, initializedField());
+
+            initializer = initializer.andThen(invoke(invokerMethod("chain"))
+                .onArgument(0)
+                .with(mask)
+                .setsField(named(field)));
+        }
+
+        if (target != null && lazy) {
+            // The target is created on the first call and cached in a volatile field of the proxy.
+            // Calls to methods of added interfaces cast the target to the interface.
+            Implementation delegation = ProxyAdvice.wrap(ProxyAdvice.LazyTarget.class, MethodCall.invokeSelf()
+                .onField("TARGET")
+                .withAllArguments()
+                .withAssigner(Assigner.DEFAULT, Assigner.Typing.DYNAMIC));
+
+            builder = builder
+                .method(overridden)
+                .intercept(delegationHook == null
+                    ? delegation
+                    : ProxyAdvice.wrap(ProxyAdvice.DelegationHook.class, delegation))
+                .defineField("TARGET", superClass, PRIVATE, VOLATILE);
+        } else if (target != null) {
+            Implementation delegation = MethodCall.invokeSelf()
+                .onField("TARGET")
+                .withAllArguments();
+
+            builder = builder
+                .method(overridden.and(isDeclaredBy(isSuperTypeOf(superClass))))
+                .intercept(delegationHook == null
+                    ? delegation
+                    : ProxyAdvice.wrap(ProxyAdvice.DelegationHook.class, delegation))
+                .defineField("TARGET", superClass, initializedField());
+
+            initializer = initializer.andThen(invoke(invokerMethod("target"))
+                .onArgument(0)
+                .setsField(named("TARGET"))
+                .withAssigner(Assigner.DEFAULT, Assigner.Typing.DYNAMIC));
+        }
+
+        // Routes call their handler directly instead of through the invoker such that each
+        // proxy method has a call site of its own
+        var matchers = routeMatchers();
+        for (int route = 0; route < matchers.size(); route++) {
+            var field = "ROUTE$" + route;
+            builder = builder
+                .method(overridden.and(matchers.get(route)))
+                .intercept(withDefaultConfiguration()
+                    .withBinders(install(Function.class))
+                    .filter(named("invoke"))
+                    .toField(field))
+                .defineField(field, InvocationHandler.class, initializedField());
+
+            initializer = initializer.andThen(invoke(invokerMethod("route"))
+                .onArgument(0)
+                .with(route)
+                .setsField(named(field)));
+        }
+
+        // Methods of mixin interfaces call their delegate held in a field of the interface type.
+        // Registered after the routes such that they are not taken over by route matchers.
+        var mixinTypes = mixinTypes();
+        for (int mixin = 0; mixin < mixinTypes.size(); mixin++) {
+            var field = "MIXIN$" + mixin;
+            var type = mixinTypes.get(mixin);
+            builder = builder
+                .method(isPublic().and(isDeclaredBy(isSuperTypeOf(type))).and(not(isDeclaredBy(Object.class))))
+                .intercept(MethodCall.invokeSelf()
+                    .onField(field)
+                    .withAllArguments())
+                .defineField(field, type, initializedField());
+
+            initializer = initializer.andThen(invoke(invokerMethod("mixin"))
+                .onArgument(0)
+                .with(mixin)
+                .setsField(named(field))
+                .withAssigner(Assigner.DEFAULT, Assigner.Typing.DYNAMIC));
+        }
+
+        if (equality != null) {
+            builder = builder
+                .method(isEquals())
+                .intercept(withDefaultConfiguration()
+                    .filter(named(equality == Equality.NEVER_EQUALS_TARGET
+                        ? "proxyNeverEqualsTarget"
+                        : "proxyCanEqualTarget"))
+                    .toField("INVOKER"))
+                .method(isHashCode())
+                .intercept(FieldAccessor.ofField("HASH_CODE"))
+                .defineField("HASH_CODE", int.class, initializedField());
+
+            initializer = initializer.andThen(invoke(invokerMethod("witnessHashCode"))
+                .onArgument(0)
+                .setsField(named("HASH_CODE")));
+        }
+
+        if (metrics != null) {
+            builder = builder
+                .visit(ProxyAdvice.visit(ProxyAdvice.Metrics.class, isMethod().and(isPublic()).and(not(isSynthetic()))));
+        }
+
+        builder = builder
+            .defineField("INVOKER", Invoker.class, PRIVATE);
+
+        if (constructor == null) {
+            // Proxies allocated without running any constructor are initialised by this method instead
+            return builder
+                .defineMethod(INITIALIZE, void.class, PUBLIC, SyntheticState.SYNTHETIC)
+                    .withParameters(Invoker.class)
+                    .intercept(initializer)
+                .make();
+        }
+
+        var parameterTypes = new ArrayList<Class<?>>();
+        parameterTypes.add(Invoker.class);
+        parameterTypes.addAll(List.of(constructor.getParameterTypes()));
+
+        var superArguments = new int[constructor.getParameterCount()];
+        for (int k = 0; k < superArguments.length; k++) {
+            superArguments[k] = k + 1;
+        }
+
+        return builder
+            .defineConstructor(PUBLIC)
+                .withParameters(parameterTypes)
+                .intercept(invoke(constructor).withArgument(superArguments)
+                .andThen(initializer))
+            .make();
+    }
+
+    // Fields set from the constructor cannot be final when they are set by INITIALIZE instead
+    private ModifierContributor.ForField[] initializedField() {
+        return skipConstructor
+            ? new ModifierContributor.ForField[] {PRIVATE}
+            : new ModifierContributor.ForField[] {PRIVATE, FINAL};
+    }
+
+    private List<MethodDescription> overriddenMethods(ElementMatcher<? super MethodDescription> overridden) {
+        var methods = new LinkedHashMap<MethodDescription.SignatureToken, MethodDescription>();
+        var types = new ArrayList<Class<?>>(toList(interfaces));
+        types.add(superClass);
+        for (var type : types) {
+            var overriddenMethods = MethodGraph.Compiler.DEFAULT.compile((TypeDefinition) TypeDescription.ForLoadedType.of(type))
+                .listNodes()
+                .asMethodList()
+                .filter(isVirtual().and(not(isFinal())).and(overridden));
+
+            for (var method : overriddenMethods) {
+                methods.putIfAbsent(method.asSignatureToken(), method);
+            }
+        }
+        return new ArrayList<>(methods.values());
+    }
+
+    private Set<Long> interceptorMasks(
+            ElementMatcher<? super MethodDescription> overridden,
+            List<ElementMatcher<? super MethodDescription>> matchers) {
+        var masks = new LinkedHashSet<Long>();
+        if (matchers.isEmpty()) {
+            return masks;
+        }
+
+        for (var method : overriddenMethods(overridden)) {
+            long mask = 0;
+            for (int k = 0; k < matchers.size(); k++) {
+                if (matchers.get(k).matches(method)) {
+                    mask |= 1L << k;
+                }
+            }
+            if (mask != 0) {
+                masks.add(mask);
+            }
+        }
+        return masks;
+    }
+
+    private static ByteCodeAppender initializeProxyMethods(List<MethodDescription> methods) {
+        var methodConstants = new ArrayList<StackManipulation>(methods.size());
+        for (var method : methods) {
+            methodConstants.add(MethodConstant.of(method.asDefined()));
+        }
+
+        var forMethods = TypeDescription.ForLoadedType.of(ProxyMethods.class)
+            .getDeclaredMethods()
+            .filter(named("forMethods"))
+            .getOnly();
+
+        return (methodVisitor, context, instrumentedMethod) -> {
+            var field = context.getInstrumentedType()
+                .getDeclaredFields()
+                .filter(named(ProxyMethods.FIELD))
+                .getOnly();
+
+            var size = new StackManipulation.Compound(
+                ArrayFactory.forType(TypeDescription.Generic.OfNonGenericType.ForLoadedType.of(Method.class))
+                    .withValues(methodConstants),
+                MethodInvocation.invoke(forMethods),
+                FieldAccess.forField(field).write()
+            ).apply(methodVisitor, context);
+
+            return new ByteCodeAppender.Size(size.getMaximalSize(), instrumentedMethod.getStackSize());
+        };
+    }
+
+    private static ElementMatcher.Junction<MethodDescription> hasInterceptorMask(
+            long mask,
+            List<ElementMatcher<? super MethodDescription>> matchers) {
+        ElementMatcher.Junction<MethodDescription> matcher = any();
+        for (int k = 0; k < matchers.size(); k++) {
+            matcher = (mask & 1L << k) != 0
+                ? matcher.and(matchers.get(k))
+                : matcher.and(not(matchers.get(k)));
+        }
+        return matcher;
+    }
+
+    private static final int MAX_INTERCEPTORS = Long.SIZE;
+
+    private static Implementation delegateTo(String field) {
+        return withDefaultConfiguration()
+            .withBinders(install(Function.class))
+            .filter(named("delegate"))
+            .toField(field);
+    }
+
+    private static MethodDescription invokerMethod(String name) {
+        return TypeDescription.ForLoadedType.of(Invoker.class)
+            .getDeclaredMethods()
+            .filter(named(name))
+            .getOnly();
+    }
+
+    private static final List<Class<?>> PRIMITIVE_RETURN_TYPES =
+        List.of(void.class, boolean.class, int.class, long.class);
+
+    private static final ElementMatcher<TypeDescription> PRIMITIVE_ARGUMENT_TYPE =
+        anyOf(byte.class, short.class, char.class, int.class, long.class);
+
+    private static ElementMatcher.Junction<MethodDescription> hasPrimitiveSignature(Class<?> returnType, int arity) {
+        var matcher = returns(returnType).and(takesArguments(arity));
+        for (int k = 0; k < arity; k++) {
+            matcher = matcher.and(takesArgument(k, PRIMITIVE_ARGUMENT_TYPE));
+        }
+        return matcher;
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * Helper method to determine whether an instance is a proxy created through {@code ProxyBuddy}.
+     * @param object  an instance to check
+     * @return  {@code true} if and only if {@code object} is a proxy created by {@code ProxyBuddy}.
+     */
+    public static boolean isProxy(Object object) {
+        return object instanceof ProxyBuddyProxy;
+    }
+
+    /**
+     * Marker interface for {@code ProxyBuddy} proxies.
+     */
+    public interface ProxyBuddyProxy {}
+
+    /**
+     * Internal helper class for delegating method calls from a proxy instance to
+     * the {@link InvocationHandler}.
+     * @param <T>
+     */
+    public static final class Invoker<T> {
+
+        private final InvocationHandler<T> invocationHandler;
+        private final PrimitiveInvocationHandler<T> primitiveInvocationHandler;
+        private final Object witness;
+        private final int witnessHashCode;
+        private final InvocationHandler<?>[] routes;
+        private final Object[] mixins;
+        private final T target;
+        private final Supplier<? extends T> lazyTarget;
+        private volatile T lazyTargetInstance;
+        private final DelegationHook<T> delegationHook;
+        private final ProxyMetrics metrics;
+        private final SuperCallInvocationHandler<T> superCallInvocationHandler;
+        private final Interceptor<T>[] interceptors;
+        private final IndexedInvocationHandler<T> indexedInvocationHandler;
+        private final CallRecorder recorder;
+
+        private Invoker(InvocationHandler<T> invocationHandler, CallRecorder recorder) {
+            this.invocationHandler = invocationHandler;
+            this.recorder = recorder;
+            this.primitiveInvocationHandler = null;
+            this.superCallInvocationHandler = null;
+            this.witness = null;
+            this.witnessHashCode = 0;
+            this.routes = null;
+            this.mixins = null;
+            this.target = null;
+            this.lazyTarget = null;
+            this.delegationHook = null;
+            this.metrics = null;
+            this.interceptors = null;
+            this.indexedInvocationHandler = null;
+        }
+
+        private Invoker(Invoker<T> invoker, Interceptor<T>[] interceptors) {
+            this.invocationHandler = invoker.invocationHandler;
+            this.recorder = invoker.recorder;
+            this.primitiveInvocationHandler = null;
+            this.superCallInvocationHandler = invoker.superCallInvocationHandler;
+            this.witness = null;
+            this.witnessHashCode = 0;
+            this.routes = null;
+            this.mixins = null;
+            this.target = null;
+            this.lazyTarget = null;
+            this.delegationHook = null;
+            this.metrics = null;
+            this.interceptors = interceptors;
+            this.indexedInvocationHandler = null;
+        }
+
+        private Invoker(ProxyBuddy<T> proxyBuddy, InvocationHandler<T> invocationHandler) {
+            this.invocationHandler = invocationHandler;
+            this.recorder = proxyBuddy.recorder;
+            this.primitiveInvocationHandler = proxyBuddy.primitiveDispatch
+                ? (PrimitiveInvocationHandler<T>) invocationHandler
+                : null;
+            this.superCallInvocationHandler = proxyBuddy.superCall
+                ? (SuperCallInvocationHandler<T>) invocationHandler
+                : null;
+            this.indexedInvocationHandler = proxyBuddy.methodIndex
+                ? (IndexedInvocationHandler<T>) invocationHandler
+                : null;
+            this.witness = proxyBuddy.witness;
+            this.witnessHashCode = proxyBuddy.equality == Equality.NEVER_EQUALS_TARGET
+                ? 31 * witness.hashCode()
+                : Objects.hashCode(witness);
+
+            var routeHandlers = toList(proxyBuddy.routes);
+            this.routes = new InvocationHandler<?>[routeHandlers.size()];
+            for (int k = 0; k < routes.length; k++) {
+                InvocationHandler<T> handler = routeHandlers.get(k).invocationHandler;
+                if (recorder != null) {
+                    handler = new Invoker<>(handler, recorder)::delegate;
+                }
+                routes[routes.length - k - 1] = handler;
+            }
+
+            var mixinBindings = toList(proxyBuddy.mixins);
+            this.mixins = new Object[mixinBindings.size()];
+            for (int k = 0; k < mixins.length; k++) {
+                mixins[mixins.length - k - 1] = mixinBindings.get(k).delegate;
+            }
+
+            this.target = proxyBuddy.target == null || proxyBuddy.lazy
+                ? null
+                : proxyBuddy.target.get();
+            this.lazyTarget = proxyBuddy.lazy
+                ? proxyBuddy.target
+                : null;
+            this.delegationHook = proxyBuddy.delegationHook;
+            this.metrics = proxyBuddy.metrics;
+
+            var interceptorBindings = toList(proxyBuddy.interceptors);
+            this.interceptors = newInterceptorArray(interceptorBindings.size());
+            for (int k = 0; k < interceptors.length; k++) {
+                interceptors[interceptors.length - k - 1] = interceptorBindings.get(k).interceptor.get();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> Interceptor<T>[] newInterceptorArray(int size) {
+            return (Interceptor<T>[]) new Interceptor<?>[size];
+        }
+
+        @RuntimeType
+        public Object delegate(@This T proxy, @Pipe Function<T, Object> pipe, @Origin Method method, @AllArguments Object[] args)
+        throws Exception {
+            return recorder == null
+                ? invocationHandler.invoke(proxy, pipe, method, args)
+                : invokeRecorded(proxy, pipe, null, method, args);
+        }
+
+        @RuntimeType
+        public Object invokeSuper(
+                @This T proxy,
+                @SuperCall(nullIfImpossible = true) Callable<Object> superCall,
+                @Origin Method method,
+                @AllArguments Object[] args)
+        throws Exception {
+            return recorder == null
+                ? superCallInvocationHandler.invoke(proxy, superCall, method, args)
+                : invokeRecorded(proxy, null, superCall, method, args);
+        }
+
+        private Object invokeRecorded(T proxy, Function<T, Object> pipe, Callable<Object> superCall, Method method,
+                Object[] args)
+        throws Exception {
+            var start = System.nanoTime();
+            Throwable thrown = null;
+            try {
+                return superCallInvocationHandler == null
+                    ? invocationHandler.invoke(proxy, pipe, method, args)
+                    : superCallInvocationHandler.invoke(proxy, superCall, method, args);
+            } catch (Throwable e) {
+                thrown = e;
+                throw e;
+            } finally {
+                recorder.record(method, args, start, System.nanoTime() - start, thrown);
+            }
+        }
+
+        @RuntimeType
+        public Object invokeIndexed(
+                @This T proxy,
+                @Pipe Function<T, Object> pipe,
+                @ProxyMethods.Index int method,
+                @AllArguments Object[] args)
+        throws Exception {
+            return indexedInvocationHandler.invoke(proxy, pipe, method, args);
+        }
+
+        @RuntimeType
+        public Object intercept(
+                @This T proxy,
+                @Pipe Function<T, Object> pipe,
+                @Origin Method method,
+                @AllArguments Object[] args)
+        throws Exception {
+            // Chains have at least one interceptor
+            return interceptors[0].intercept(new Position1<>(new Call<>(this, proxy, pipe, null, method, args)));
+        }
+
+        @RuntimeType
+        public Object interceptSuper(
+                @This T proxy,
+                @SuperCall(nullIfImpossible = true) Callable<Object> superCall,
+                @Origin Method method,
+                @AllArguments Object[] args)
+        throws Exception {
+            return interceptors[0].intercept(new Position1<>(new Call<>(this, proxy, null, superCall, method, args)));
+        }
+
+        public void invokeVoid(@This T proxy, @Origin Method method) throws Exception {
+            primitiveInvocationHandler.invoke(proxy, method, 0, 0);
+        }
+
+        public void invokeVoid(@This T proxy, @Origin Method method, @Argument(0) long arg0) throws Exception {
+            primitiveInvocationHandler.invoke(proxy, method, arg0, 0);
+        }
+
+        public void invokeVoid(@This T proxy, @Origin Method method, @Argument(0) long arg0, @Argument(1) long arg1)
+        throws Exception {
+            primitiveInvocationHandler.invoke(proxy, method, arg0, arg1);
+        }
+
+        public boolean invokeBoolean(@This T proxy, @Origin Method method) throws Exception {
+            return primitiveInvocationHandler.invoke(proxy, method, 0, 0) != 0;
+        }
+
+        public boolean invokeBoolean(@This T proxy, @Origin Method method, @Argument(0) long arg0) throws Exception {
+            return primitiveInvocationHandler.invoke(proxy, method, arg0, 0) != 0;
+        }
+
+        public boolean invokeBoolean(@This T proxy, @Origin Method method, @Argument(0) long arg0, @Argument(1) long arg1)
+        throws Exception {
+            return primitiveInvocationHandler.invoke(proxy, method, arg0, arg1) != 0;
+        }
+
+        public int invokeInt(@This T proxy, @Origin Method method) throws Exception {
+            return (int) primitiveInvocationHandler.invoke(proxy, method, 0, 0);
+        }
+
+        public int invokeInt(@This T proxy, @Origin Method method, @Argument(0) long arg0) throws Exception {
+            return (int) primitiveInvocationHandler.invoke(proxy, method, arg0, 0);
+        }
+
+        public int invokeInt(@This T proxy, @Origin Method method, @Argument(0) long arg0, @Argument(1) long arg1)
+        throws Exception {
+            return (int) primitiveInvocationHandler.invoke(proxy, method, arg0, arg1);
+        }
+
+        public long invokeLong(@This T proxy, @Origin Method method) throws Exception {
+            return primitiveInvocationHandler.invoke(proxy, method, 0, 0);
+        }
+
+        public long invokeLong(@This T proxy, @Origin Method method, @Argument(0) long arg0) throws Exception {
+            return primitiveInvocationHandler.invoke(proxy, method, arg0, 0);
+        }
+
+        public long invokeLong(@This T proxy, @Origin Method method, @Argument(0) long arg0, @Argument(1) long arg1)
+        throws Exception {
+            return primitiveInvocationHandler.invoke(proxy, method, arg0, arg1);
+        }
+
+        public boolean proxyNeverEqualsTarget(@Argument(0) Object other) {
+            if (isProxy(other)) {
+                return other.equals(this);
+            } else if (other instanceof Invoker<?> invoker) {
+                return witness.equals(invoker.witness);
+            } else {
+                return false;
+            }
+        }
+
+        public boolean proxyCanEqualTarget(@Argument(0) Object other) {
+            return witness.equals(other);
+        }
+
+        public int witnessHashCode() {
+            return witnessHashCode;
+        }
+
+        public InvocationHandler<?> route(int route) {
+            return routes[route];
+        }
+
+        public Object mixin(int mixin) {
+            return mixins[mixin];
+        }
+
+        public Invoker<?> chain(long mask) {
+            var chain = new ArrayList<Interceptor<T>>();
+            for (int k = 0; k < interceptors.length; k++) {
+                if ((mask & 1L << k) != 0) {
+                    chain.add(interceptors[k]);
+                }
+            }
+            return new Invoker<>(this, chain.toArray(newInterceptorArray(0)));
+        }
+
+        public T target() {
+            return target;
+        }
+
+        public T lazyTarget() {
+            var instance = lazyTargetInstance;
+            if (instance == null) {
+                synchronized (this) {
+                    instance = lazyTargetInstance;
+                    if (instance == null) {
+                        instance = Objects.requireNonNull(lazyTarget.get(), "Lazy target must not be null");
+                        lazyTargetInstance = instance;
+                    }
+                }
+            }
+            return instance;
+        }
+
+        public void before(T proxy, Method method) {
+            delegationHook.before(proxy, method);
+        }
+
+        public void after(T proxy, Method method) {
+            delegationHook.after(proxy, method);
+        }
+
+        public void record(Method method, long nanos, boolean failed) {
+            metrics.record(method, nanos, failed);
+        }
+    }
+
+    private enum Equality { NEVER_EQUALS_TARGET, CAN_EQUAL_TARGET }
+
+    /**
+     * State of a call passing through the interceptors of a chain.
+     */
+    private record Call<T>(
+            Invoker<T> chain,
+            T proxy,
+            Function<T, Object> pipe,
+            Callable<Object> superCall,
+            Method method,
+            Object[] arguments) {
+
+        Object complete() throws Exception {
+            if (chain.recorder != null) {
+                return chain.invokeRecorded(proxy, pipe, superCall, method, arguments);
+            }
+            return chain.superCallInvocationHandler == null
+                ? chain.invocationHandler.invoke(proxy, pipe, method, arguments)
+                : chain.superCallInvocationHandler.invoke(proxy, superCall, method, arguments);
+        }
+    }
+
+    /**
+     * Invocation proceeding to the interceptor at a given position of a chain. There is a class
+     * per position for the first positions such that each calls its interceptor from a call site
+     * of its own and proceeding does not recurse into the same method, which would keep the JIT
+     * from inlining the chain. Invocations are immutable such that interceptors may proceed
+     * repeatedly and also after they returned.
+     */
+    private abstract static class Position<T> implements Invocation<T> {
+        final Call<T> call;
+
+        Position(Call<T> call) {
+            this.call = call;
+        }
+
+        @Override
+        public T proxy() {
+            return call.proxy;
+        }
+
+        @Override
+        public Method method() {
+            return call.method;
+        }
+
+        @Override
+        public Object[] arguments() {
+            return call.arguments;
+        }
+    }
+
+    private static final class Position1<T> extends Position<T> {
+        Position1(Call<T> call) {
+            super(call);
+        }
+
+        @Override
+        public Object proceed() throws Exception {
+            var interceptors = call.chain.interceptors;
+            return interceptors.length > 1
+                ? interceptors[1].intercept(new Position2<>(call))
+                : call.complete();
+        }
+    }
+
+    private static final class Position2<T> extends Position<T> {
+        Position2(Call<T> call) {
+            super(call);
+        }
+
+        @Override
+        public Object proceed() throws Exception {
+            var interceptors = call.chain.interceptors;
+            return interceptors.length > 2
+                ? interceptors[2].intercept(new Position3<>(call))
+                : call.complete();
+        }
+    }
+
+    private static final class Position3<T> extends Position<T> {
+        Position3(Call<T> call) {
+            super(call);
+        }
+
+        @Override
+        public Object proceed() throws Exception {
+            var interceptors = call.chain.interceptors;
+            return interceptors.length > 3
+                ? interceptors[3].intercept(new PositionN<>(call, 4))
+                : call.complete();
+        }
+    }
+
+    // Positions after the first ones share a call site
+    private static final class PositionN<T> extends Position<T> {
+        private final int position;
+
+        PositionN(Call<T> call, int position) {
+            super(call);
+            this.position = position;
+        }
+
+        @Override
+        public Object proceed() throws Exception {
+            var interceptors = call.chain.interceptors;
+            return interceptors.length > position
+                ? interceptors[position].intercept(new PositionN<>(call, position + 1))
+                : call.complete();
+        }
+    }
+
+    private record InterceptorBinding<T>(
+        ElementMatcher<? super MethodDescription> matcher,
+        Supplier<? extends Interceptor<T>> interceptor) {}
+
+    private record Route<T>(ElementMatcher<? super MethodDescription> matcher, InvocationHandler<T> invocationHandler) {}
+
+    private record Mixin<I>(Class<I> type, I delegate) {}
+
+    /**
+     * Key identifying the shape of a proxy class in the {@link ProxyClassCache}. Classes are
+     * referenced by name so the key itself does not keep them reachable. Method matchers of routes,
+     * interceptors and interception are kept as they are however. Matchers referencing classes,
+     * such as {@code isDeclaredBy(type)}, keep those classes and their class loaders reachable for
+     * as long as the proxy class stays cached.
+     */
+    private record Shape(
+        String superClass,
+        Set<String> interfaces,
+        List<String> constructorParameters,
+        boolean primitiveDispatch,
+        Equality equality,
+        List<ElementMatcher<? super MethodDescription>> routes,
+        List<String> mixins,
+        boolean delegating,
+        boolean lazy,
+        boolean delegationHook,
+        boolean metrics,
+        boolean collectible,
+        ElementMatcher<? super MethodDescription> interception,
+        boolean superCall,
+        List<ElementMatcher<? super MethodDescription>> interceptors,
+        boolean methodIndex,
+        boolean skipConstructor) {
+
+        /**
+         * Name for proxy classes of this shape generated ahead of time. The name is derived from a
+         * digest of the shape, which is stable across class loaders and JVM runs.
+         * @return  the name or {@code null} if the shape has no stable name because it depends
+         *          on method matchers or if its classes are collectible and thus cannot be
+         *          generated ahead of time.
+         */
+        String proxyClassName() {
+            if (!routes.isEmpty() || !interceptors.isEmpty() || collectible || interception != null) {
+                return null;
+            }
+
+            var description = String.join(";",
+                SHAPE_FORMAT,
+                superClass,
+                String.join(",", new TreeSet<>(interfaces)),
+                String.join(",", constructorParameters),
+                String.join(",", mixins),
+                Boolean.toString(primitiveDispatch),
+                String.valueOf(equality),
+                Boolean.toString(delegating),
+                Boolean.toString(lazy),
+                Boolean.toString(delegationHook),
+                Boolean.toString(metrics),
+                Boolean.toString(superCall),
+                Boolean.toString(methodIndex),
+                Boolean.toString(skipConstructor));
+
+            try {
+                var digest = MessageDigest.getInstance("SHA-256").digest(description.getBytes(UTF_8));
+                return superClass + "$ProxyBuddy$" + HexFormat.of().formatHex(digest, 0, 8);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    // Change when the layout of generated proxy classes changes such that
+    // classes generated ahead of time by previous versions are not picked up
+    private static final String SHAPE_FORMAT = "1";
+
+    // Name of the method initialising proxies allocated without running their constructor
+    private static final String INITIALIZE = "proxyBuddy$initialize";
+
+    private static Set<String> toNames(Cons<Class<?>> classes) {
+        var names = new HashSet<String>();
+        for (var type : toList(classes)) {
+            names.add(type.getName());
+        }
+        return names;
+    }
+
+    private static List<String> toNames(Class<?>[] classes) {
+        var names = new ArrayList<String>(classes.length);
+        for (var type : classes) {
+            names.add(type.getName());
         }
+        return names;
     }
 
     private record Cons<T>(T value, Cons<T> values) {}
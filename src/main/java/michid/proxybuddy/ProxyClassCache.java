@@ -0,0 +1,137 @@
+package michid.proxybuddy;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.bytebuddy.TypeCache;
+
+/**
+ * {@code ProxyClassCache} holds the proxy classes generated by {@link ProxyBuddy}. Proxy classes
+ * are keyed by their shape: the proxied class, the implemented interfaces, the signature of the
+ * super class constructor and any further configuration that affects the generated byte code.
+ * The cache only keeps weak references to the class loaders defining the proxy classes so it
+ * never prevents those from being unloaded. Collectible proxy classes are kept in a separate map
+ * holding them weakly, whose entries are removed together with their shapes once the classes
+ * were unloaded.
+ */
+public final class ProxyClassCache {
+    private static final TypeCache<Object> CACHE = new TypeCache.WithInlineExpunction<>(TypeCache.Sort.WEAK);
+
+    // TypeCache keeps its keys until their class loader is unloaded, which for collectible proxy
+    // classes is the long lived class loader of the proxied class
+    private static final ConcurrentMap<CollectibleKey, CollectibleClass> COLLECTIBLE = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Class<?>> UNLOADED = new ReferenceQueue<>();
+    private static final Object[] MONITORS = new Object[64];
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+
+    static {
+        for (int k = 0; k < MONITORS.length; k++) {
+            MONITORS[k] = new Object();
+        }
+    }
+
+    private ProxyClassCache() {}
+
+    /**
+     * Generator for a proxy class that is not in the cache yet.
+     */
+    interface Generator {
+        Class<?> generate()
+        throws IllegalAccessException, NoSuchMethodException;
+    }
+
+    /**
+     * Look up the proxy class for {@code shape} in {@code classLoader} and use {@code generator} for
+     * generating it if it is not cached yet. Concurrent calls for the same shape generate the proxy
+     * class only once while calls for different shapes proceed in parallel.
+     * @param classLoader  class loader defining the proxy class
+     * @param shape  key identifying the shape of the proxy class
+     * @param collectible  whether the generated proxy class can be unloaded before {@code classLoader}
+     * @param generator  generator for the proxy class
+     * @return  the proxy class for {@code shape}
+     * @throws IllegalAccessException
+     * @throws NoSuchMethodException
+     */
+    static Class<?> findOrGenerate(ClassLoader classLoader, Object shape, boolean collectible, Generator generator)
+    throws IllegalAccessException, NoSuchMethodException {
+        expungeUnloaded();
+        var proxyClass = find(classLoader, shape, collectible);
+        if (proxyClass != null) {
+            HITS.increment();
+            return proxyClass;
+        }
+
+        synchronized (MONITORS[(shape.hashCode() & 0x7fffffff) % MONITORS.length]) {
+            proxyClass = find(classLoader, shape, collectible);
+            if (proxyClass != null) {
+                HITS.increment();
+                return proxyClass;
+            }
+
+            MISSES.increment();
+            return insert(classLoader, shape, collectible, generator.generate());
+        }
+    }
+
+    private static Class<?> find(ClassLoader classLoader, Object shape, boolean collectible) {
+        if (collectible) {
+            var entry = COLLECTIBLE.get(new CollectibleKey(classLoader, shape));
+            return entry == null ? null : entry.get();
+        }
+        return CACHE.find(classLoader, shape);
+    }
+
+    private static Class<?> insert(ClassLoader classLoader, Object shape, boolean collectible, Class<?> proxyClass) {
+        if (collectible) {
+            var key = new CollectibleKey(classLoader, shape);
+            COLLECTIBLE.put(key, new CollectibleClass(proxyClass, key));
+            return proxyClass;
+        }
+        return CACHE.insert(classLoader, shape, proxyClass);
+    }
+
+    private static void expungeUnloaded() {
+        Reference<? extends Class<?>> unloaded;
+        while ((unloaded = UNLOADED.poll()) != null) {
+            COLLECTIBLE.remove(((CollectibleClass) unloaded).key, unloaded);
+        }
+    }
+
+    private record CollectibleKey(ClassLoader classLoader, Object shape) {}
+
+    private static final class CollectibleClass extends WeakReference<Class<?>> {
+        private final CollectibleKey key;
+
+        CollectibleClass(Class<?> proxyClass, CollectibleKey key) {
+            super(proxyClass, UNLOADED);
+            this.key = key;
+        }
+    }
+
+    /**
+     * @return  number of proxy class lookups that were served from the cache
+     */
+    public static long hitCount() {
+        return HITS.sum();
+    }
+
+    /**
+     * @return  number of proxy class lookups that required generating a new proxy class
+     */
+    public static long missCount() {
+        return MISSES.sum();
+    }
+
+    /**
+     * Remove all proxy classes from the cache. Already loaded proxy classes stay loaded.
+     */
+    public static void clear() {
+        CACHE.clear();
+        COLLECTIBLE.clear();
+    }
+}
@@ -0,0 +1,168 @@
+package michid.proxybuddy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import michid.proxybuddy.ProxyBuddy.InvocationHandler;
+import michid.proxybuddy.ProxyBuddy.Invoker;
+
+/**
+ * A {@code ProxyFactory} creates proxy instances of a single shape. It holds the already
+ * loaded proxy class and a pre-resolved handle to its constructor so creating a proxy only
+ * costs a constructor call. Instances are obtained from {@link ProxyBuddy#buildFactory()}
+ * and are safe for use by multiple threads.
+ * <pre>
+ * var factory = new ProxyBuddy<>(MyClass.class, invocationHandler)
+ *     .withInterface(Interface1.class)
+ *     .buildFactory();
+ *
+ * var proxy1 = factory.newInstance(invocationHandler1);
+ * var proxy2 = factory.newInstance(invocationHandler2);
+ * </pre>
+ * @param <T>  type of the proxies created by this factory
+ */
+public final class ProxyFactory<T> {
+    private final ProxyBuddy<T> proxyBuddy;
+    private final Class<? extends T> proxyClass;
+    private final MethodHandle constructor;
+    private final Class<?>[] parameterTypes;
+    private final Class<?>[] argumentTypes;
+
+    ProxyFactory(ProxyBuddy<T> proxyBuddy, Class<? extends T> proxyClass, MethodHandle constructor) {
+        this.proxyBuddy = proxyBuddy;
+        this.proxyClass = proxyClass;
+        this.parameterTypes = constructor.type().dropParameterTypes(0, 1).parameterArray();
+        this.argumentTypes = constructor.type().dropParameterTypes(0, 1).wrap().parameterArray();
+        this.constructor = constructor
+            .asType(constructor.type().generic().changeParameterType(0, Invoker.class))
+            .asSpreader(Object[].class, parameterTypes.length);
+    }
+
+    /**
+     * @return  the class of the proxies created by this factory
+     */
+    public Class<? extends T> proxyClass() {
+        return proxyClass;
+    }
+
+    /**
+     * Create a new proxy instance passing the constructor arguments this factory was built with
+     * to the constructor of the super class.
+     * @param invocationHandler  handler receiving all calls to the returned proxy
+     * @return  a new proxy instance of type {@code T}
+     * @throws InvocationTargetException  if the constructor of the super class throws an exception
+     */
+    public T newInstance(InvocationHandler<T> invocationHandler) throws InvocationTargetException {
+        return newInstance(invocationHandler, proxyBuddy.arguments());
+    }
+
+    /**
+     * Create a new proxy instance passing {@code arguments} to the constructor of the super class.
+     * @param invocationHandler  handler receiving all calls to the returned proxy
+     * @param arguments  arguments passed to the constructor for creating the super class instance
+     * @return  a new proxy instance of type {@code T}
+     * @throws InvocationTargetException  if the constructor of the super class throws an exception
+     * @throws IllegalArgumentException  if {@code arguments} do not match the parameters of the
+     *                                   constructor of the super class or if {@code invocationHandler}
+     *                                   does not match the dispatch configured for this factory
+     */
+    public T newInstance(InvocationHandler<T> invocationHandler, Object... arguments)
+    throws InvocationTargetException {
+        checkArguments(arguments);
+        return instantiate(invocationHandler, arguments);
+    }
+
+    /**
+     * Create {@code count} new proxy instances passing the constructor arguments this factory
+     * was built with to the constructor of the super class. The arguments are checked once for
+     * all instances.
+     * @param count  number of proxies to create
+     * @param invocationHandlers  function returning the handler receiving all calls to the proxy
+     *                            at the given index
+     * @return  an unmodifiable list of the new proxy instances in index order
+     * @throws InvocationTargetException  if the constructor of the super class throws an exception
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> newInstances(int count, IntFunction<? extends InvocationHandler<T>> invocationHandlers)
+    throws InvocationTargetException {
+        var arguments = proxyBuddy.arguments();
+        checkArguments(arguments);
+
+        var proxies = new Object[count];
+        for (int k = 0; k < count; k++) {
+            proxies[k] = instantiate(invocationHandlers.apply(k), arguments);
+        }
+        return (List<T>) Collections.unmodifiableList(Arrays.asList(proxies));
+    }
+
+    /**
+     * Stream of {@code count} new proxy instances passing the constructor arguments this factory
+     * was built with to the constructor of the super class. The proxies are created lazily as
+     * the stream is consumed. Very large batches can be created on the common fork join pool
+     * by making the stream {@link Stream#parallel() parallel}, in which case
+     * {@code invocationHandlers} is called concurrently.
+     * <pre>
+     * var proxies = factory.newInstanceStream(100_000, index -> invocationHandler)
+     *     .parallel()
+     *     .toArray(MyClass[]::new);
+     * </pre>
+     * @param count  number of proxies to create
+     * @param invocationHandlers  function returning the handler receiving all calls to the proxy
+     *                            at the given index
+     * @return  a stream of new proxy instances in index order. The stream throws an
+     *          {@link UndeclaredThrowableException} wrapping an {@link InvocationTargetException}
+     *          if the constructor of the super class throws an exception.
+     */
+    public Stream<T> newInstanceStream(int count, IntFunction<? extends InvocationHandler<T>> invocationHandlers) {
+        var arguments = proxyBuddy.arguments();
+        checkArguments(arguments);
+
+        return IntStream.range(0, count).mapToObj(index -> {
+            try {
+                return instantiate(invocationHandlers.apply(index), arguments);
+            } catch (InvocationTargetException e) {
+                throw new UndeclaredThrowableException(e);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private T instantiate(InvocationHandler<T> invocationHandler, Object[] arguments)
+    throws InvocationTargetException {
+        Invoker<T> invoker = proxyBuddy.newInvoker(invocationHandler);
+        try {
+            return (T) constructor.invokeExact(invoker, arguments);
+        } catch (WrongMethodTypeException | ClassCastException | VirtualMachineError e) {
+            // Arguments not matching the constructor and failures of the VM are not
+            // exceptions of the constructor
+            throw e;
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    private void checkArguments(Object[] arguments) {
+        if (arguments.length != parameterTypes.length) {
+            throw new IllegalArgumentException(
+                "Wrong number of arguments: expected " + parameterTypes.length + " but was " + arguments.length);
+        }
+
+        for (int k = 0; k < arguments.length; k++) {
+            if (arguments[k] == null
+                    ? parameterTypes[k].isPrimitive()
+                    : !argumentTypes[k].isInstance(arguments[k])) {
+                throw new IllegalArgumentException(
+                    "Argument type mismatch at " + k + ": expected " + parameterTypes[k].getName());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+package michid.proxybuddy;
+
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static java.lang.invoke.MethodHandles.lookup;
+import static java.lang.invoke.MethodHandles.privateLookupIn;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Map;
+
+import net.bytebuddy.description.annotation.AnnotationDescription;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.method.ParameterDescription;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.bind.MethodDelegationBinder;
+import net.bytebuddy.implementation.bind.annotation.TargetMethodAnnotationDrivenBinder;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+import net.bytebuddy.implementation.bytecode.constant.IntegerConstant;
+
+/**
+ * Table of the methods of a proxy class created with {@link ProxyBuddy#withMethodIndex()}. Each
+ * method overridden by the proxy class has a dense index between {@code 0} and {@link #size()},
+ * which is passed to {@link ProxyBuddy.IndexedInvocationHandler}. Handlers can use the index
+ * for dispatching through arrays or {@code switch} statements instead of keying on {@link Method}.
+ * <pre>
+ * var methods = ProxyMethods.of(proxy.getClass());
+ * var counts = new LongAdder[methods.size()];
+ * </pre>
+ */
+public final class ProxyMethods {
+    private final Method[] methods;
+    private final MethodHandle[] methodHandles;
+
+    private ProxyMethods(Method[] methods) throws IllegalAccessException {
+        this.methods = methods;
+        this.methodHandles = new MethodHandle[methods.length];
+        for (int k = 0; k < methods.length; k++) {
+            methodHandles[k] = unreflect(methods[k]);
+        }
+    }
+
+    private static MethodHandle unreflect(Method method) throws IllegalAccessException {
+        var declaringClass = method.getDeclaringClass();
+        return Modifier.isPublic(declaringClass.getModifiers())
+            ? lookup().unreflect(method)
+            : privateLookupIn(declaringClass, lookup()).unreflect(method);
+    }
+
+    /**
+     * Create a new method table. Called from the type initializer of generated proxy classes.
+     * @param methods  the methods in the order of their index
+     * @return  a new {@code ProxyMethods} instance
+     * @throws IllegalAccessException
+     */
+    public static ProxyMethods forMethods(Method[] methods) throws IllegalAccessException {
+        return new ProxyMethods(methods.clone());
+    }
+
+    /**
+     * Method table of a proxy class.
+     * @param proxyClass  a proxy class created with {@link ProxyBuddy#withMethodIndex()}
+     * @return  the method table of {@code proxyClass}
+     * @throws IllegalArgumentException  if {@code proxyClass} has no method table
+     */
+    public static ProxyMethods of(Class<?> proxyClass) {
+        try {
+            return (ProxyMethods) proxyClass.getField(FIELD).get(null);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Not a proxy class with method index: " + proxyClass, e);
+        }
+    }
+
+    /**
+     * @return  the number of methods in this table
+     */
+    public int size() {
+        return methods.length;
+    }
+
+    /**
+     * @param index  index of a method
+     * @return  the method with the given {@code index}
+     */
+    public Method method(int index) {
+        return methods[index];
+    }
+
+    /**
+     * Method handle for the method with the given {@code index}. The method handle dispatches
+     * virtually such that calling it on a proxy calls the proxy again. Use it for calling
+     * targets.
+     * @param index  index of a method
+     * @return  the method handle for the method with the given {@code index}
+     */
+    public MethodHandle methodHandle(int index) {
+        return methodHandles[index];
+    }
+
+    /**
+     * @param method  a method
+     * @return  the index of {@code method} or {@code -1} if it is not in this table
+     */
+    public int indexOf(Method method) {
+        for (int k = 0; k < methods.length; k++) {
+            if (methods[k].equals(method)) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(methods);
+    }
+
+    /**
+     * Name of the static field holding the method table of a proxy class.
+     */
+    static final String FIELD = "PROXY_METHODS";
+
+    /**
+     * Binds the index of the instrumented method.
+     */
+    @Retention(RUNTIME)
+    @Target(PARAMETER)
+    @interface Index {}
+
+    /**
+     * Binder for {@link Index} resolving the index of each instrumented method from the
+     * indexes assigned when the proxy class was generated.
+     */
+    static final class IndexBinder implements TargetMethodAnnotationDrivenBinder.ParameterBinder<Index> {
+        private final Map<MethodDescription.SignatureToken, Integer> indexes;
+
+        IndexBinder(Map<MethodDescription.SignatureToken, Integer> indexes) {
+            this.indexes = indexes;
+        }
+
+        @Override
+        public Class<Index> getHandledType() {
+            return Index.class;
+        }
+
+        @Override
+        public MethodDelegationBinder.ParameterBinding<?> bind(
+                AnnotationDescription.Loadable<Index> annotation,
+                MethodDescription source,
+                ParameterDescription target,
+                Implementation.Target implementationTarget,
+                Assigner assigner,
+                Assigner.Typing typing) {
+            var index = indexes.get(source.asSignatureToken());
+            return index == null
+                ? MethodDelegationBinder.ParameterBinding.Illegal.INSTANCE
+                : new MethodDelegationBinder.ParameterBinding.Anonymous(IntegerConstant.forValue(index));
+        }
+    }
+}
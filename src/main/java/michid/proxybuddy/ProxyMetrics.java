@@ -0,0 +1,223 @@
+package michid.proxybuddy;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry for per method call counts and latencies of proxies created with
+ * {@link ProxyBuddy#withMetrics(ProxyMetrics)}. A registry can be shared between any number
+ * of proxies. Recording is lock free: counters are {@link LongAdder}s and latencies are
+ * recorded into a log-linear histogram with four sub-buckets per power of two, which bounds
+ * the relative error of reported percentiles to 25%.
+ * <pre>
+ * var metrics = new ProxyMetrics();
+ * var proxy = new ProxyBuddy<>(MyClass.class, invocationHandler)
+ *     .withMetrics(metrics)
+ *     .createProxy();
+ *
+ * proxy.method1();
+ * var snapshot = metrics.snapshot(MyClass.class.getMethod("method1"));
+ * </pre>
+ */
+public final class ProxyMetrics {
+    private final Map<Method, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+    void record(Method method, long nanos, boolean failed) {
+        var metrics = methods.get(method);
+        if (metrics == null) {
+            metrics = methods.computeIfAbsent(method, __ -> new MethodMetrics());
+        }
+        metrics.record(nanos, failed);
+    }
+
+    /**
+     * Snapshot of the metrics of a single method.
+     * @param method  the proxied method
+     * @return  the metrics recorded for {@code method} or an empty snapshot if the method
+     *          has not been called.
+     */
+    public Snapshot snapshot(Method method) {
+        var metrics = methods.get(method);
+        return metrics == null
+            ? new Snapshot(0, 0, 0, new long[BUCKETS])
+            : metrics.snapshot();
+    }
+
+    /**
+     * Snapshots of the metrics of all methods that have been called.
+     * @return  a map from the proxied methods to their snapshots
+     */
+    public Map<Method, Snapshot> snapshot() {
+        var snapshots = new HashMap<Method, Snapshot>();
+        methods.forEach((method, metrics) -> snapshots.put(method, metrics.snapshot()));
+        return snapshots;
+    }
+
+    /**
+     * Discard all metrics recorded so far.
+     */
+    public void reset() {
+        methods.clear();
+    }
+
+    /**
+     * Point in time view of the metrics of a method. The counters of a snapshot are read
+     * one after the other while calls may still be recorded concurrently. They are thus not
+     * guaranteed to be mutually consistent.
+     */
+    public static final class Snapshot {
+        private final long failures;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long[] histogram;
+        private final long count;
+
+        private Snapshot(long failures, long totalNanos, long maxNanos, long[] histogram) {
+            this.failures = failures;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.histogram = histogram;
+
+            long count = 0;
+            for (var bucket : histogram) {
+                count += bucket;
+            }
+            this.count = count;
+        }
+
+        /**
+         * @return  number of calls
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * @return  number of calls that completed with an exception
+         */
+        public long failures() {
+            return failures;
+        }
+
+        /**
+         * @return  sum of the latencies of all calls in nanoseconds
+         */
+        public long totalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * @return  the highest latency of any call in nanoseconds
+         */
+        public long maxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * @return  mean latency in nanoseconds or {@code 0} if there were no calls
+         */
+        public double meanNanos() {
+            return count == 0
+                ? 0
+                : (double) totalNanos / count;
+        }
+
+        /**
+         * Latency below which the given percentage of calls completed.
+         * @param percentile  percentage between {@code 0} and {@code 100}
+         * @return  the upper bound of the histogram bucket containing the percentile in
+         *          nanoseconds, at most {@link #maxNanos()}. {@code 0} if there were no calls.
+         */
+        public long percentileNanos(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile not between 0 and 100: " + percentile);
+            }
+
+            var rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int bucket = 0; bucket < histogram.length; bucket++) {
+                seen += histogram[bucket];
+                if (seen >= rank) {
+                    return Math.min(upperBound(bucket), maxNanos);
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{count=" + count + ", failures=" + failures + ", mean=" + meanNanos() +
+                "ns, p50=" + percentileNanos(50) + "ns, p99=" + percentileNanos(99) +
+                "ns, max=" + maxNanos + "ns}";
+        }
+    }
+
+    private static final class MethodMetrics {
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+        MethodMetrics() {
+            for (int k = 0; k < histogram.length; k++) {
+                histogram[k] = new LongAdder();
+            }
+        }
+
+        void record(long nanos, boolean failed) {
+            histogram[bucket(nanos)].increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            if (failed) {
+                failures.increment();
+            }
+        }
+
+        Snapshot snapshot() {
+            var counts = new long[histogram.length];
+            for (int k = 0; k < counts.length; k++) {
+                counts[k] = histogram[k].sum();
+            }
+            return new Snapshot(failures.sum(), totalNanos.sum(), maxNanos.get(), counts);
+        }
+    }
+
+    // Values below 4 have a bucket each. Above, each power of two 2^e is split into four
+    // buckets of width 2^(e-2). Latencies beyond 2^40ns (about 18 minutes) share the last bucket.
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(0, nanos);
+        }
+
+        var exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+
+        var subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        if (bucket == BUCKETS - 1) {
+            return Long.MAX_VALUE;
+        }
+
+        var exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        var subBucket = bucket % SUB_BUCKETS;
+        var width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (SUB_BUCKETS + subBucket) * width + width - 1;
+    }
+}
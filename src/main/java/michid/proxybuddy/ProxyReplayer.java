@@ -0,0 +1,260 @@
+package michid.proxybuddy;
+
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+
+import michid.proxybuddy.TrafficFormat.Opaque;
+
+/**
+ * Replays the calls recorded by a {@link TrafficRecorder} against a target. The recorded file
+ * is read sequentially through memory mapped regions and each call is invoked on the target
+ * from the calling thread in the order the calls returned when recording. Calls are replayed
+ * as fast as possible or at the pace they were recorded.
+ * <p>
+ * The {@link Report} of a replay contains the latencies of the recorded and of the replayed
+ * calls per method and counts the calls whose outcome differs from the recorded one: a different
+ * result or a different exception class. Values recorded by their class only are passed as
+ * {@code null} and their results are not compared.
+ * <p>
+ * Values recorded with Java serialization are only deserialized if they pass an
+ * {@link ObjectInputFilter}, which by default only accepts classes of the {@code java.base}
+ * module. Replaying files from untrusted sources with a broader filter allows them to
+ * instantiate any accepted serializable class.
+ * <pre>
+ * var report = ProxyReplayer.of(file)
+ *     .atRecordedSpeed()
+ *     .replay(new MyClass());
+ *
+ * report.replayedLatencies(MyClass.class.getMethod("method1")).percentileNanos(99);
+ * </pre>
+ */
+public final class ProxyReplayer {
+    private static final int REGION_SIZE = 16 * 1024 * 1024;
+
+    private static final ObjectInputFilter DEFAULT_FILTER =
+        ObjectInputFilter.Config.createFilter("maxdepth=64;java.base/*;!*");
+
+    private final Path file;
+    private final boolean recordedSpeed;
+    private final ObjectInputFilter filter;
+
+    private ProxyReplayer(Path file, boolean recordedSpeed, ObjectInputFilter filter) {
+        this.file = file;
+        this.recordedSpeed = recordedSpeed;
+        this.filter = filter;
+    }
+
+    /**
+     * Create a new replayer for the calls recorded in {@code file} replaying at maximum speed.
+     * @param file  a file written by a {@link TrafficRecorder}
+     * @return  a new replayer
+     */
+    public static ProxyReplayer of(Path file) {
+        return new ProxyReplayer(Objects.requireNonNull(file), false, DEFAULT_FILTER);
+    }
+
+    /**
+     * @return  a new replayer waiting before each call until as much time has passed since
+     *          the start of the replay as had passed since the start of the recording
+     */
+    public ProxyReplayer atRecordedSpeed() {
+        return new ProxyReplayer(file, true, filter);
+    }
+
+    /**
+     * @return  a new replayer replaying each call as soon as the previous one returned
+     */
+    public ProxyReplayer atMaximumSpeed() {
+        return new ProxyReplayer(file, false, filter);
+    }
+
+    /**
+     * Replace the filter for values recorded with Java serialization, e.g. for accepting the
+     * serializable classes of an application as well:
+     * <pre>
+     * ProxyReplayer.of(file)
+     *     .withObjectInputFilter(ObjectInputFilter.Config.createFilter("java.base/*;com.example.**;!*"))
+     * </pre>
+     * @param filter  filter deciding which classes may be deserialized
+     * @return  a new replayer deserializing values through {@code filter}
+     */
+    public ProxyReplayer withObjectInputFilter(ObjectInputFilter filter) {
+        return new ProxyReplayer(file, recordedSpeed, Objects.requireNonNull(filter));
+    }
+
+    /**
+     * Replay the recorded calls against {@code target}. Recorded methods and values are
+     * resolved through the class loader of {@code target}.
+     * @param target  the instance to invoke the recorded calls on
+     * @return  the report of the replay
+     * @throws IOException  if the file cannot be read, a recorded method or value cannot be resolved
+     *                      or a recorded value is rejected by the {@link #withObjectInputFilter filter}
+     */
+    public Report replay(Object target) throws IOException {
+        var classLoader = target.getClass().getClassLoader();
+        var methods = new ArrayList<Method>();
+        var recorded = new ProxyMetrics();
+        var replayed = new ProxyMetrics();
+        long calls = 0;
+        long mismatches = 0;
+
+        var start = System.nanoTime();
+        try (var reader = new TrafficFormat.Reader(file, REGION_SIZE)) {
+            for (var entry = reader.next(); entry != null; entry = reader.next()) {
+                var kind = entry.get();
+                if (kind == TrafficFormat.METHOD) {
+                    methods.add(TrafficFormat.getVarInt(entry), resolve(entry, classLoader));
+                } else if (kind == TrafficFormat.CALL) {
+                    var method = methods.get(TrafficFormat.getVarInt(entry));
+                    var startNanos = TrafficFormat.getVarLong(entry);
+                    var durationNanos = TrafficFormat.getVarLong(entry);
+                    var arguments = getArguments(entry, classLoader, filter);
+                    var outcome = entry.get();
+                    var expected = outcome == TrafficFormat.RETURNED
+                        ? TrafficFormat.getValue(entry, classLoader, filter)
+                        : TrafficFormat.getString(entry);
+
+                    if (recordedSpeed) {
+                        waitUntil(start + startNanos);
+                    }
+
+                    Object result = null;
+                    Throwable thrown = null;
+                    var callStart = System.nanoTime();
+                    try {
+                        result = method.invoke(target, arguments);
+                    } catch (InvocationTargetException e) {
+                        thrown = e.getCause();
+                    } catch (ReflectiveOperationException | IllegalArgumentException e) {
+                        thrown = e;
+                    }
+                    var callNanos = System.nanoTime() - callStart;
+
+                    calls++;
+                    recorded.record(method, durationNanos, outcome == TrafficFormat.THREW);
+                    replayed.record(method, callNanos, thrown != null);
+                    if (!matches(outcome, expected, result, thrown)) {
+                        mismatches++;
+                    }
+                } else {
+                    throw new IOException("Invalid entry kind " + kind + " in " + file);
+                }
+            }
+        }
+
+        return new Report(calls, mismatches, System.nanoTime() - start, recorded, replayed);
+    }
+
+    private static Method resolve(ByteBuffer entry, ClassLoader classLoader) throws IOException {
+        var method = TrafficFormat.getMethod(entry, classLoader);
+        method.trySetAccessible();
+        return method;
+    }
+
+    private static Object[] getArguments(ByteBuffer entry, ClassLoader classLoader, ObjectInputFilter filter)
+    throws IOException {
+        var arguments = new Object[TrafficFormat.getVarInt(entry)];
+        for (int k = 0; k < arguments.length; k++) {
+            var argument = TrafficFormat.getValue(entry, classLoader, filter);
+            arguments[k] = argument instanceof Opaque
+                ? null
+                : argument;
+        }
+        return arguments;
+    }
+
+    private static void waitUntil(long deadline) {
+        for (var delay = deadline - System.nanoTime(); delay > 0; delay = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(delay);
+        }
+    }
+
+    private static boolean matches(byte outcome, Object expected, Object result, Throwable thrown) {
+        if (outcome == TrafficFormat.THREW) {
+            return thrown != null && thrown.getClass().getName().equals(expected);
+        } else {
+            return thrown == null && (expected instanceof Opaque || Objects.deepEquals(expected, result));
+        }
+    }
+
+    /**
+     * Outcome of a replay.
+     */
+    public static final class Report {
+        private final long calls;
+        private final long mismatches;
+        private final long elapsedNanos;
+        private final ProxyMetrics recorded;
+        private final ProxyMetrics replayed;
+
+        private Report(long calls, long mismatches, long elapsedNanos, ProxyMetrics recorded, ProxyMetrics replayed) {
+            this.calls = calls;
+            this.mismatches = mismatches;
+            this.elapsedNanos = elapsedNanos;
+            this.recorded = recorded;
+            this.replayed = replayed;
+        }
+
+        /**
+         * @return  number of replayed calls
+         */
+        public long calls() {
+            return calls;
+        }
+
+        /**
+         * @return  number of replayed calls whose result or exception differed from the recorded one
+         */
+        public long mismatches() {
+            return mismatches;
+        }
+
+        /**
+         * @return  duration of the replay in nanoseconds
+         */
+        public long elapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @param method  a recorded method
+         * @return  latencies of the calls to {@code method} when they were recorded
+         */
+        public ProxyMetrics.Snapshot recordedLatencies(Method method) {
+            return recorded.snapshot(method);
+        }
+
+        /**
+         * @param method  a recorded method
+         * @return  latencies of the calls to {@code method} when they were replayed
+         */
+        public ProxyMetrics.Snapshot replayedLatencies(Method method) {
+            return replayed.snapshot(method);
+        }
+
+        /**
+         * @return  latencies of the replayed calls per method
+         */
+        public Map<Method, ProxyMetrics.Snapshot> replayedLatencies() {
+            return replayed.snapshot();
+        }
+
+        @Override
+        public String toString() {
+            List<String> methods = new ArrayList<>();
+            replayed.snapshot().forEach((method, snapshot) ->
+                methods.add(method.getName() + ": recorded " + recorded.snapshot(method) + ", replayed " + snapshot));
+            return "Report{calls=" + calls + ", mismatches=" + mismatches + ", elapsed=" + elapsedNanos +
+                "ns, " + String.join(", ", methods) + "}";
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package michid.proxybuddy;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Binary format of the files written by {@link TrafficRecorder} and read by {@link ProxyReplayer}.
+ * <p>
+ * A file starts with a {@link #MAGIC} number and a {@link #VERSION} followed by a sequence of
+ * entries. Each entry is prefixed with its length as an {@code int} and starts with its kind.
+ * An entry of length {@code 0} marks the end of a file that was not closed properly. A
+ * {@link #METHOD} entry defines the id of a method by its declaring class, name and parameter
+ * types. A {@link #CALL} entry refers to a method by its id and contains the start time
+ * relative to the start of the recording, the duration, the arguments and the outcome of a call.
+ * Integers are written as variable length quantities, values as a tag followed by their
+ * encoding.
+ */
+final class TrafficFormat {
+    static final int MAGIC = 0x50425452;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = Integer.BYTES + Short.BYTES;
+
+    // Entry kinds
+    static final byte METHOD = 1;
+    static final byte CALL = 2;
+
+    // Call outcomes
+    static final byte RETURNED = 1;
+    static final byte THREW = 2;
+
+    // Value tags
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte BYTE = 3;
+    private static final byte SHORT = 4;
+    private static final byte CHAR = 5;
+    private static final byte INT = 6;
+    private static final byte LONG = 7;
+    private static final byte FLOAT = 8;
+    private static final byte DOUBLE = 9;
+    private static final byte STRING = 10;
+    private static final byte ENUM = 11;
+    private static final byte BYTES = 12;
+    private static final byte SERIALIZED = 13;
+    private static final byte OPAQUE = 14;
+
+    private static final Map<String, Class<?>> PRIMITIVES = Map.of(
+        "boolean", boolean.class, "byte", byte.class, "short", short.class, "char", char.class,
+        "int", int.class, "long", long.class, "float", float.class, "double", double.class,
+        "void", void.class);
+
+    private TrafficFormat() {}
+
+    /**
+     * Placeholder for a value that could not be recorded.
+     */
+    record Opaque(String className) {}
+
+    /**
+     * Growable buffer for encoding entries.
+     */
+    static final class Encoder {
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        Encoder reset() {
+            size = 0;
+            return this;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void writeTo(ByteBuffer buffer) {
+            buffer.put(bytes, 0, size);
+        }
+
+        void put(byte value) {
+            ensure(1);
+            bytes[size++] = value;
+        }
+
+        void putBytes(byte[] values) {
+            putVarLong(values.length);
+            ensure(values.length);
+            System.arraycopy(values, 0, bytes, size, values.length);
+            size += values.length;
+        }
+
+        void putVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void putZigZag(long value) {
+            putVarLong(value << 1 ^ value >> 63);
+        }
+
+        void putString(String value) {
+            putBytes(value.getBytes(UTF_8));
+        }
+
+        void putMethod(int id, Method method) {
+            put(METHOD);
+            putVarLong(id);
+            putString(method.getDeclaringClass().getName());
+            putString(method.getName());
+            var parameterTypes = method.getParameterTypes();
+            putVarLong(parameterTypes.length);
+            for (var parameterType : parameterTypes) {
+                putString(parameterType.getName());
+            }
+        }
+
+        void putValue(Object value) {
+            if (value == null) {
+                put(NULL);
+            } else if (value instanceof Boolean booleanValue) {
+                put(booleanValue ? TRUE : FALSE);
+            } else if (value instanceof Byte byteValue) {
+                put(BYTE);
+                put(byteValue);
+            } else if (value instanceof Short shortValue) {
+                put(SHORT);
+                putZigZag(shortValue);
+            } else if (value instanceof Character charValue) {
+                put(CHAR);
+                putVarLong(charValue);
+            } else if (value instanceof Integer intValue) {
+                put(INT);
+                putZigZag(intValue);
+            } else if (value instanceof Long longValue) {
+                put(LONG);
+                putZigZag(longValue);
+            } else if (value instanceof Float floatValue) {
+                put(FLOAT);
+                putVarLong(Integer.toUnsignedLong(Float.floatToRawIntBits(floatValue)));
+            } else if (value instanceof Double doubleValue) {
+                put(DOUBLE);
+                putVarLong(Long.reverse(Double.doubleToRawLongBits(doubleValue)));
+            } else if (value instanceof String stringValue) {
+                put(STRING);
+                putString(stringValue);
+            } else if (value instanceof Enum<?> enumValue) {
+                put(ENUM);
+                putString(enumValue.getDeclaringClass().getName());
+                putString(enumValue.name());
+            } else if (value instanceof byte[] byteArray) {
+                put(BYTES);
+                putBytes(byteArray);
+            } else if (value instanceof Serializable) {
+                var serialized = serialize(value);
+                if (serialized == null) {
+                    putOpaque(value);
+                } else {
+                    put(SERIALIZED);
+                    putBytes(serialized);
+                }
+            } else {
+                putOpaque(value);
+            }
+        }
+
+        private void putOpaque(Object value) {
+            put(OPAQUE);
+            putString(value.getClass().getName());
+        }
+
+        private static byte[] serialize(Object value) {
+            var bytes = new ByteArrayOutputStream();
+            try (var out = new ObjectOutputStream(bytes)) {
+                out.writeObject(value);
+            } catch (IOException | RuntimeException e) {
+                // Not serializable after all, e.g. because of a non serializable field or
+                // a failing writeObject method
+                return null;
+            }
+            return bytes.toByteArray();
+        }
+
+        private void ensure(int count) {
+            if (size + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, size + count));
+            }
+        }
+    }
+
+    static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            var b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    static int getVarInt(ByteBuffer buffer) {
+        return (int) getVarLong(buffer);
+    }
+
+    static long getZigZag(ByteBuffer buffer) {
+        var value = getVarLong(buffer);
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        return new String(getBytes(buffer), UTF_8);
+    }
+
+    static Method getMethod(ByteBuffer buffer, ClassLoader classLoader) throws IOException {
+        var declaringClass = getString(buffer);
+        var name = getString(buffer);
+        var parameterTypes = new Class<?>[getVarInt(buffer)];
+        try {
+            for (int k = 0; k < parameterTypes.length; k++) {
+                parameterTypes[k] = loadClass(getString(buffer), classLoader);
+            }
+            return loadClass(declaringClass, classLoader).getMethod(name, parameterTypes);
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Cannot resolve recorded method " + declaringClass + '.' + name, e);
+        }
+    }
+
+    static Object getValue(ByteBuffer buffer, ClassLoader classLoader, ObjectInputFilter filter) throws IOException {
+        var tag = buffer.get();
+        switch (tag) {
+            case NULL: return null;
+            case TRUE: return true;
+            case FALSE: return false;
+            case BYTE: return buffer.get();
+            case SHORT: return (short) getZigZag(buffer);
+            case CHAR: return (char) getVarLong(buffer);
+            case INT: return (int) getZigZag(buffer);
+            case LONG: return getZigZag(buffer);
+            case FLOAT: return Float.intBitsToFloat((int) getVarLong(buffer));
+            case DOUBLE: return Double.longBitsToDouble(Long.reverse(getVarLong(buffer)));
+            case STRING: return getString(buffer);
+            case ENUM: return getEnum(getString(buffer), getString(buffer), classLoader);
+            case BYTES: return getBytes(buffer);
+            case SERIALIZED: return deserialize(getBytes(buffer), classLoader, filter);
+            case OPAQUE: return new Opaque(getString(buffer));
+            default: throw new IOException("Invalid value tag " + tag);
+        }
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer) {
+        var bytes = new byte[getVarInt(buffer)];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object getEnum(String className, String name, ClassLoader classLoader) throws IOException {
+        try {
+            return Enum.valueOf((Class) loadClass(className, classLoader), name);
+        } catch (ReflectiveOperationException | IllegalArgumentException e) {
+            throw new IOException("Cannot resolve recorded enum constant " + className + '.' + name, e);
+        }
+    }
+
+    private static Object deserialize(byte[] bytes, ClassLoader classLoader, ObjectInputFilter filter) throws IOException {
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass descriptor) throws IOException, ClassNotFoundException {
+                try {
+                    return loadClass(descriptor.getName(), classLoader);
+                } catch (ClassNotFoundException e) {
+                    return super.resolveClass(descriptor);
+                }
+            }
+        }) {
+            in.setObjectInputFilter(filter);
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Cannot resolve class of recorded value", e);
+        }
+    }
+
+    private static Class<?> loadClass(String name, ClassLoader classLoader) throws ClassNotFoundException {
+        var primitive = PRIMITIVES.get(name);
+        return primitive == null
+            ? Class.forName(name, false, classLoader)
+            : primitive;
+    }
+
+    /**
+     * Reads the entries of a file through memory mapped regions.
+     */
+    static final class Reader implements Closeable {
+        private final FileChannel channel;
+        private final long size;
+        private final int regionSize;
+        private MappedByteBuffer region;
+        private long regionStart;
+
+        Reader(Path file, int regionSize) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.size = channel.size();
+            this.regionSize = regionSize;
+            this.region = channel.map(MapMode.READ_ONLY, 0, Math.min(size, regionSize));
+
+            if (!ensure(HEADER_SIZE) || region.getInt() != MAGIC) {
+                close();
+                throw new IOException("Not a traffic file: " + file);
+            }
+            var version = region.getShort();
+            if (version != VERSION) {
+                close();
+                throw new IOException("Unsupported traffic file version " + version + ": " + file);
+            }
+        }
+
+        /**
+         * @return  the next entry or {@code null} at the end of the file
+         */
+        ByteBuffer next() throws IOException {
+            if (!ensure(Integer.BYTES)) {
+                return null;
+            }
+            var length = region.getInt();
+            if (length == 0) {
+                return null;
+            }
+            if (!ensure(length)) {
+                throw new IOException("Truncated traffic file");
+            }
+            var entry = region.slice(region.position(), length);
+            region.position(region.position() + length);
+            return entry;
+        }
+
+        private boolean ensure(int count) throws IOException {
+            if (region.remaining() >= count) {
+                return true;
+            }
+            var position = regionStart + region.position();
+            if (position + count > size) {
+                return false;
+            }
+            regionStart = position;
+            region = channel.map(MapMode.READ_ONLY, position, Math.min(size - position, Math.max(regionSize, count)));
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package michid.proxybuddy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import michid.proxybuddy.ProxyBuddy.InvocationHandler;
+import michid.proxybuddy.TrafficFormat.Encoder;
+
+/**
+ * Invocation handler recording the calls it forwards to another invocation handler into a
+ * file for replaying them later with a {@link ProxyReplayer}. For each call the recorder writes
+ * the method, the arguments, the result or the class of the exception thrown, the start time
+ * and the duration. Primitives, strings, enums and byte arrays are written in a compact binary
+ * encoding, other serializable values with Java serialization. Values that cannot be serialized
+ * are recorded by their class only.
+ * <p>
+ * Calls are encoded on the calling thread once they return and then appended to the file
+ * through memory mapped regions, which are mapped one after another as the file grows.
+ * Calls after {@link #close()} are forwarded without being recorded. Calls that cannot be
+ * recorded are forwarded as well and counted as {@link #failures()}.
+ * <pre>
+ * try (var recorder = TrafficRecorder.create(file, (proxy, pipe, method, arguments) -> pipe.apply(target))) {
+ *     var proxy = new ProxyBuddy<>(MyClass.class, recorder)
+ *         .createProxy();
+ *     ...
+ * }
+ * var report = ProxyReplayer.of(file).replay(new MyClass());
+ * </pre>
+ *
+ * @param <T>
+ */
+public final class TrafficRecorder<T> implements InvocationHandler<T>, Closeable {
+    private static final int DEFAULT_REGION_SIZE = 16 * 1024 * 1024;
+    private static final ThreadLocal<Encoder> ENCODER = ThreadLocal.withInitial(Encoder::new);
+
+    private final InvocationHandler<T> handler;
+    private final FileChannel channel;
+    private final int regionSize;
+    private final long start = System.nanoTime();
+    private final Map<Method, Integer> methodIds = new HashMap<>();
+    private final Encoder methodEncoder = new Encoder();
+
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long calls;
+    private long failures;
+    private Throwable lastFailure;
+    private boolean closed;
+
+    private TrafficRecorder(Path file, int regionSize, InvocationHandler<T> handler) throws IOException {
+        this.handler = handler;
+        this.regionSize = regionSize;
+        this.channel = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.region = channel.map(MapMode.READ_WRITE, 0, regionSize);
+        region.putInt(TrafficFormat.MAGIC);
+        region.putShort(TrafficFormat.VERSION);
+    }
+
+    /**
+     * Create a new recorder writing to {@code file}, replacing its content.
+     * @param file  the file to record to
+     * @param handler  the invocation handler to forward calls to
+     * @return  a new recorder
+     * @throws IOException  if the file cannot be opened
+     */
+    public static <T> TrafficRecorder<T> create(Path file, InvocationHandler<T> handler) throws IOException {
+        return create(file, DEFAULT_REGION_SIZE, handler);
+    }
+
+    /**
+     * Create a new recorder writing to {@code file}, replacing its content.
+     * @param file  the file to record to
+     * @param regionSize  size of the regions of the file mapped into memory
+     * @param handler  the invocation handler to forward calls to
+     * @return  a new recorder
+     * @throws IOException  if the file cannot be opened
+     */
+    public static <T> TrafficRecorder<T> create(Path file, int regionSize, InvocationHandler<T> handler) throws IOException {
+        if (regionSize < TrafficFormat.HEADER_SIZE) {
+            throw new IllegalArgumentException("Region size too small: " + regionSize);
+        }
+        return new TrafficRecorder<>(file, regionSize, handler);
+    }
+
+    @Override
+    public Object invoke(T proxy, Function<T, Object> pipe, Method method, Object... arguments) throws Exception {
+        var startNanos = System.nanoTime();
+        Object result = null;
+        Throwable thrown = null;
+        try {
+            result = handler.invoke(proxy, pipe, method, arguments);
+            return result;
+        } catch (Throwable e) {
+            thrown = e;
+            throw e;
+        } finally {
+            record(method, arguments, startNanos, result, thrown);
+        }
+    }
+
+    // Failures to record a call are counted and never change the outcome of the call itself
+    private void record(Method method, Object[] arguments, long startNanos, Object result, Throwable thrown) {
+        try {
+            var durationNanos = System.nanoTime() - startNanos;
+            var call = ENCODER.get().reset();
+            call.putVarLong(startNanos - start);
+            call.putVarLong(durationNanos);
+            call.putVarLong(arguments.length);
+            for (var argument : arguments) {
+                call.putValue(argument);
+            }
+            if (thrown == null) {
+                call.put(TrafficFormat.RETURNED);
+                call.putValue(result);
+            } else {
+                call.put(TrafficFormat.THREW);
+                call.putString(thrown.getClass().getName());
+            }
+            append(method, call);
+        } catch (VirtualMachineError e) {
+            throw e;
+        } catch (Throwable e) {
+            failed(e);
+        }
+    }
+
+    private synchronized void append(Method method, Encoder call) throws IOException {
+        if (closed) {
+            return;
+        }
+
+        var id = methodIds.get(method);
+        if (id == null) {
+            methodEncoder.reset().putMethod(methodIds.size(), method);
+            write(methodEncoder, null);
+            id = methodIds.size();
+            methodIds.put(method, id);
+        }
+
+        methodEncoder.reset().put(TrafficFormat.CALL);
+        methodEncoder.putVarLong(id);
+        write(methodEncoder, call);
+        calls++;
+    }
+
+    private synchronized void failed(Throwable e) {
+        failures++;
+        lastFailure = e;
+    }
+
+    private void write(Encoder head, Encoder tail) throws IOException {
+        var length = head.size() + (tail == null ? 0 : tail.size());
+        var size = Integer.BYTES + length;
+        if (region.remaining() < size) {
+            var next = regionStart + region.position();
+            region = channel.map(MapMode.READ_WRITE, next, Math.max(regionSize, size));
+            regionStart = next;
+        }
+
+        // Write the length last such that readers never see a partially written entry
+        var position = region.position();
+        region.position(position + Integer.BYTES);
+        head.writeTo(region);
+        if (tail != null) {
+            tail.writeTo(region);
+        }
+        region.putInt(position, length);
+    }
+
+    /**
+     * @return  number of calls recorded so far
+     */
+    public synchronized long calls() {
+        return calls;
+    }
+
+    /**
+     * @return  number of calls that could not be recorded, e.g. because encoding one of their
+     *          values or writing to the file failed. These calls were forwarded nevertheless.
+     */
+    public synchronized long failures() {
+        return failures;
+    }
+
+    /**
+     * @return  the cause of the last call that could not be recorded or {@code null} if none
+     */
+    public synchronized Throwable lastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * @return  number of bytes written so far
+     */
+    public synchronized long size() {
+        return closed
+            ? regionStart
+            : regionStart + region.position();
+    }
+
+    /**
+     * Stop recording, write all recorded calls to the file and truncate it to its size.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        region.force();
+        regionStart += region.position();
+        region = null;
+        try (channel) {
+            channel.truncate(regionStart);
+        }
+    }
+}
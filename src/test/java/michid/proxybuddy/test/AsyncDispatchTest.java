@@ -0,0 +1,165 @@
+package michid.proxybuddy.test;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import org.junit.jupiter.api.Test;
+
+import michid.proxybuddy.ProxyBuddy;
+
+public class AsyncDispatchTest {
+
+    public static class Client {
+        public CompletableFuture<String> fetch(String key) {
+            return CompletableFuture.completedFuture(key);
+        }
+
+        public CompletionStage<String> stage(String key) {
+            return CompletableFuture.completedFuture(key);
+        }
+
+        public String get(String key) {
+            return key;
+        }
+    }
+
+    @Test
+    void returnImmediately() throws Exception {
+        var release = new CountDownLatch(1);
+        var proxy = new ProxyBuddy<>(Client.class, (thisProxy, pipe, method, arguments) -> {
+                release.await();
+                return arguments[0] + "!";
+            })
+            .withAsyncDispatch()
+            .createProxy();
+
+        var result = proxy.fetch("a");
+        assertFalse(result.isDone());
+
+        release.countDown();
+        assertEquals("a!", result.get(10, SECONDS));
+    }
+
+    @Test
+    void blockingCallsDoNotStarveCommonPool() throws Exception {
+        var calls = 2 * ForkJoinPool.getCommonPoolParallelism() + 2;
+        var entered = new CountDownLatch(calls);
+        var proxy = new ProxyBuddy<>(Client.class, (thisProxy, pipe, method, arguments) -> {
+                assertTrue(Thread.currentThread().isDaemon());
+                assertFalse(Thread.currentThread() instanceof ForkJoinWorkerThread);
+                entered.countDown();
+                entered.await();
+                return arguments[0];
+            })
+            .withAsyncDispatch()
+            .createProxy();
+
+        var results = new ArrayList<CompletableFuture<String>>();
+        for (int k = 0; k < calls; k++) {
+            results.add(proxy.fetch("k" + k));
+        }
+        for (int k = 0; k < calls; k++) {
+            assertEquals("k" + k, results.get(k).get(10, SECONDS));
+        }
+    }
+
+    @Test
+    void runOnExecutor() throws Exception {
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var proxy = new ProxyBuddy<>(Client.class, (thisProxy, pipe, method, arguments) ->
+                    CompletableFuture.completedFuture(Thread.currentThread()))
+                .withAsyncDispatch(executor)
+                .createProxy();
+
+            var thread = executor.submit(Thread::currentThread).get();
+            assertSame(thread, ((CompletableFuture<?>) (Object) proxy.fetch("a")).get(10, SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void completeWithStageReturnedByHandler() throws Exception {
+        var stage = new CompletableFuture<String>();
+        var proxy = new ProxyBuddy<>(Client.class, (thisProxy, pipe, method, arguments) -> stage)
+            .withAsyncDispatch()
+            .createProxy();
+
+        var result = proxy.stage("a").toCompletableFuture();
+        stage.complete("done");
+        assertEquals("done", result.get(10, SECONDS));
+    }
+
+    @Test
+    void propagateExceptions() throws Exception {
+        var proxy = new ProxyBuddy<>(Client.class, (thisProxy, pipe, method, arguments) -> {
+                throw new IllegalStateException("failed");
+            })
+            .withAsyncDispatch()
+            .createProxy();
+
+        var result = proxy.fetch("a");
+        var exception = assertThrows(ExecutionException.class, () -> result.get(10, SECONDS));
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+
+    @Test
+    void propagateExceptionalStages() throws Exception {
+        var proxy = new ProxyBuddy<>(Client.class, (thisProxy, pipe, method, arguments) ->
+                CompletableFuture.failedFuture(new IllegalStateException("failed")))
+            .withAsyncDispatch()
+            .createProxy();
+
+        var result = proxy.fetch("a");
+        var exception = assertThrows(ExecutionException.class, () -> result.get(10, SECONDS));
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+
+    @Test
+    void dispatchOtherMethodsSynchronously() throws Exception {
+        var caller = Thread.currentThread();
+        var proxy = new ProxyBuddy<>(Client.class, (thisProxy, pipe, method, arguments) ->
+                Thread.currentThread() == caller ? "caller" : "other")
+            .withAsyncDispatch()
+            .createProxy();
+
+        assertEquals("caller", proxy.get("a"));
+    }
+
+    @Test
+    void fanOut() throws Exception {
+        var caller = Thread.currentThread();
+        var proxy = new ProxyBuddy<>(Client.class, (thisProxy, pipe, method, arguments) -> {
+                assertNotSame(caller, Thread.currentThread());
+                return arguments[0];
+            })
+            .withAsyncDispatch()
+            .createProxy();
+
+        var results = new ArrayList<CompletableFuture<String>>();
+        for (int k = 0; k < 1000; k++) {
+            results.add(proxy.fetch(Integer.toString(k)));
+        }
+        for (int k = 0; k < 1000; k++) {
+            assertEquals(Integer.toString(k), results.get(k).get(10, SECONDS));
+        }
+        assertTrue(results.stream().allMatch(CompletableFuture::isDone));
+    }
+
+}
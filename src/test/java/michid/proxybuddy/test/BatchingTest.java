@@ -0,0 +1,245 @@
+package michid.proxybuddy.test;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static net.bytebuddy.matcher.ElementMatchers.any;
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import michid.proxybuddy.BatchPolicy;
+import michid.proxybuddy.ProxyBuddy;
+import michid.proxybuddy.ProxyBuddy.BatchHandler;
+
+public class BatchingTest {
+
+    public static class Sink {
+        public void emit(int value) {}
+
+        public int count() {
+            return 0;
+        }
+    }
+
+    private static Sink createProxy(BatchPolicy policy, BatchHandler<Sink> batchHandler) throws Exception {
+        return new ProxyBuddy<>(Sink.class, (thisProxy, pipe, method, arguments) -> 42)
+            .withBatching(named("emit"), policy, batchHandler)
+            .createProxy();
+    }
+
+    private static List<Object> arguments(List<ProxyBuddy.Invocation<Sink>> invocations) {
+        var arguments = new ArrayList<>();
+        for (var invocation : invocations) {
+            arguments.add(invocation.arguments()[0]);
+        }
+        return arguments;
+    }
+
+    @Test
+    void flushFullBatches() throws Exception {
+        var batches = Collections.synchronizedList(new ArrayList<List<Object>>());
+        var flushed = new CountDownLatch(2);
+        var proxy = createProxy(BatchPolicy.maxBatchSize(3).maxDelay(Duration.ofHours(1)), invocations -> {
+            batches.add(arguments(invocations));
+            flushed.countDown();
+        });
+
+        for (int k = 0; k < 6; k++) {
+            proxy.emit(k);
+        }
+
+        assertTrue(flushed.await(10, SECONDS));
+        assertEquals(List.of(List.of(0, 1, 2), List.of(3, 4, 5)), batches);
+    }
+
+    @Test
+    void flushAfterMaxDelay() throws Exception {
+        var flushed = new CompletableFuture<List<Object>>();
+        var proxy = createProxy(BatchPolicy.maxBatchSize(100).maxDelay(Duration.ofMillis(10)),
+            invocations -> flushed.complete(arguments(invocations)));
+
+        proxy.emit(1);
+        assertEquals(List.of(1), flushed.get(10, SECONDS));
+    }
+
+    @Test
+    void proceedToInvocationHandler() throws Exception {
+        var emitted = new CompletableFuture<Object>();
+        var proxy = new ProxyBuddy<>(Sink.class, (thisProxy, pipe, method, arguments) -> {
+                emitted.complete(arguments[0]);
+                return null;
+            })
+            .withBatching(any(), BatchPolicy.maxBatchSize(1), invocations -> {
+                for (var invocation : invocations) {
+                    invocation.proceed();
+                }
+            })
+            .createProxy();
+
+        proxy.emit(7);
+        assertEquals(7, emitted.get(10, SECONDS));
+    }
+
+    @Test
+    void doNotBatchMethodsReturningValues() throws Exception {
+        var proxy = createProxy(BatchPolicy.maxBatchSize(1), invocations -> {});
+
+        assertEquals(42, proxy.count());
+    }
+
+    @Test
+    void flushFromCaller() throws Exception {
+        var batches = Collections.synchronizedList(new ArrayList<List<Object>>());
+        var policy = BatchPolicy.maxBatchSize(100).maxDelay(Duration.ofHours(1));
+        var proxy = createProxy(policy, invocations -> batches.add(arguments(invocations)));
+
+        proxy.emit(1);
+        proxy.emit(2);
+        policy.flush();
+
+        assertEquals(List.of(List.of(1, 2)), batches);
+        assertEquals(1, policy.stats().flushes());
+        assertEquals(2, policy.stats().flushedCalls());
+    }
+
+    @Test
+    void dropOnOverflow() throws Exception {
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var policy = BatchPolicy.maxBatchSize(1)
+            .capacity(2)
+            .maxDelay(Duration.ofHours(1))
+            .onOverflow(BatchPolicy.Overflow.DROP);
+        var proxy = createProxy(policy, invocations -> {
+            entered.countDown();
+            release.await();
+        });
+
+        proxy.emit(0);
+        assertTrue(entered.await(10, SECONDS));
+        for (int k = 1; k <= 4; k++) {
+            proxy.emit(k);
+        }
+        release.countDown();
+        policy.flush();
+
+        assertEquals(2, policy.stats().dropped());
+        assertEquals(3, policy.stats().flushedCalls());
+    }
+
+    @Test
+    void callerRunsOnOverflow() throws Exception {
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var active = new AtomicInteger();
+        var overlapping = new AtomicBoolean();
+        var caller = new AtomicReference<Thread>();
+        var callerBatches = Collections.synchronizedList(new ArrayList<List<Object>>());
+        var emitted = Collections.synchronizedList(new ArrayList<>());
+        var policy = BatchPolicy.maxBatchSize(1)
+            .capacity(2)
+            .maxDelay(Duration.ofHours(1))
+            .onOverflow(BatchPolicy.Overflow.CALLER_RUNS);
+        var proxy = createProxy(policy, invocations -> {
+            if (active.incrementAndGet() > 1) {
+                overlapping.set(true);
+            }
+            if (Thread.currentThread() == caller.get()) {
+                callerBatches.add(arguments(invocations));
+            } else if (entered.getCount() > 0) {
+                entered.countDown();
+                release.await();
+            }
+            emitted.addAll(arguments(invocations));
+            active.decrementAndGet();
+        });
+
+        proxy.emit(0);
+        assertTrue(entered.await(10, SECONDS));
+        proxy.emit(1);
+        proxy.emit(2);
+
+        var callerRuns = CompletableFuture.runAsync(() -> {
+            caller.set(Thread.currentThread());
+            proxy.emit(3);
+        });
+        Thread.sleep(50);
+        assertFalse(callerRuns.isDone());
+
+        release.countDown();
+        callerRuns.get(10, SECONDS);
+        proxy.emit(4);
+        policy.flush();
+
+        assertEquals(List.of(List.of(3)), callerBatches);
+        assertEquals(List.of(0, 1, 2, 3, 4), emitted);
+        assertEquals(1, policy.stats().callerRuns());
+        assertFalse(overlapping.get());
+    }
+
+    @Test
+    void blockOnOverflow() throws Exception {
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var emitted = Collections.synchronizedList(new ArrayList<>());
+        var policy = BatchPolicy.maxBatchSize(1)
+            .capacity(2)
+            .maxDelay(Duration.ofHours(1));
+        var proxy = createProxy(policy, invocations -> {
+            entered.countDown();
+            release.await();
+            emitted.addAll(arguments(invocations));
+        });
+
+        proxy.emit(0);
+        assertTrue(entered.await(10, SECONDS));
+        proxy.emit(1);
+        proxy.emit(2);
+
+        var blocked = CompletableFuture.runAsync(() -> proxy.emit(3));
+        Thread.sleep(50);
+        assertTrue(!blocked.isDone());
+
+        release.countDown();
+        blocked.get(10, SECONDS);
+        policy.flush();
+        assertEquals(List.of(0, 1, 2, 3), emitted);
+        assertEquals(0, policy.stats().dropped());
+    }
+
+    @Test
+    void releaseUnreachableProxies() throws Exception {
+        var policy = BatchPolicy.maxBatchSize(100).maxDelay(Duration.ofHours(1));
+        var batchHandler = batchHandler(policy);
+
+        for (int k = 0; k < 100 && batchHandler.get() != null; k++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(batchHandler.get());
+        policy.flush();
+    }
+
+    private static WeakReference<BatchHandler<Sink>> batchHandler(BatchPolicy policy) throws Exception {
+        var flushed = new ArrayList<>();
+        BatchHandler<Sink> batchHandler = invocations -> flushed.addAll(arguments(invocations));
+        createProxy(policy, batchHandler).count();
+        return new WeakReference<>(batchHandler);
+    }
+
+}
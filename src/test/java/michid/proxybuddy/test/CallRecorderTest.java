@@ -0,0 +1,185 @@
+package michid.proxybuddy.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+
+import michid.proxybuddy.CallRecorder;
+import michid.proxybuddy.ProxyBuddy;
+
+public class CallRecorderTest {
+
+    public static class Service {
+        public int add(int a, long b) {
+            return 0;
+        }
+
+        public String call(String name, Object value, double weight) {
+            return name;
+        }
+
+        public void fail() {}
+    }
+
+    private static Service createProxy(CallRecorder recorder) throws Exception {
+        return new ProxyBuddy<>(Service.class, (thisProxy, pipe, method, arguments) -> {
+                if (method.getName().equals("fail")) {
+                    throw new IllegalStateException();
+                }
+                return method.getName().equals("add") ? 0 : "result";
+            })
+            .withRecorder(recorder)
+            .createProxy();
+    }
+
+    @Test
+    void recordCalls() throws Exception {
+        var recorder = CallRecorder.ofCapacity(16);
+        var proxy = createProxy(recorder);
+        var before = System.currentTimeMillis();
+
+        proxy.add(1, 2L);
+        proxy.call("name", null, 0.5);
+        assertThrows(IllegalStateException.class, proxy::fail);
+
+        var records = recorder.snapshot();
+        assertEquals(3, records.size());
+
+        var add = records.get(0);
+        assertEquals(0, add.sequence());
+        assertEquals(Service.class.getMethod("add", int.class, long.class), add.method());
+        assertEquals(2, add.argumentCount());
+        assertEquals("1", add.argument(0));
+        assertEquals("2", add.argument(1));
+        assertNull(add.thrown());
+        assertTrue(add.durationNanos() >= 0);
+        assertTrue(add.timestampMillis() >= before - 1);
+        assertEquals(Thread.currentThread().getId(), add.threadId());
+
+        var call = records.get(1);
+        assertEquals(3, call.argumentCount());
+        assertEquals("String[length=4, hash=" + "name".hashCode() + "]", call.argument(0));
+        assertEquals("null", call.argument(1));
+
+        var fail = records.get(2);
+        assertEquals(0, fail.argumentCount());
+        assertNull(fail.argument(0));
+        assertEquals(IllegalStateException.class, fail.thrown());
+    }
+
+    @Test
+    void keepMostRecentCalls() throws Exception {
+        var recorder = CallRecorder.ofCapacity(4);
+        var proxy = createProxy(recorder);
+
+        for (int k = 0; k < 10; k++) {
+            proxy.add(k, 0);
+        }
+
+        var records = recorder.snapshot();
+        assertEquals(4, records.size());
+        for (int k = 0; k < 4; k++) {
+            assertEquals(6 + k, records.get(k).sequence());
+            assertEquals(Integer.toString(6 + k), records.get(k).argument(0));
+        }
+        assertEquals(10, recorder.recorded());
+    }
+
+    @Test
+    void drain() throws Exception {
+        var recorder = CallRecorder.ofCapacity(8);
+        var proxy = createProxy(recorder);
+
+        proxy.add(1, 0);
+        proxy.add(2, 0);
+        assertEquals(2, recorder.drain().size());
+        assertEquals(0, recorder.drain().size());
+
+        proxy.add(3, 0);
+        var records = recorder.drain();
+        assertEquals(1, records.size());
+        assertEquals("3", records.get(0).argument(0));
+        assertEquals(3, recorder.snapshot().size());
+    }
+
+    @Test
+    void dump() throws Exception {
+        var recorder = CallRecorder.ofCapacity(8);
+        var proxy = createProxy(recorder);
+
+        proxy.add(1, 2);
+        var dump = new StringBuilder();
+        recorder.dump(dump);
+
+        assertTrue(dump.toString().contains("Service.add(1, 2)"), dump.toString());
+    }
+
+    @Test
+    void concurrentWriters() throws Exception {
+        var recorder = CallRecorder.ofCapacity(1024);
+        var proxy = createProxy(recorder);
+
+        var writers = new ArrayList<CompletableFuture<Void>>();
+        for (int k = 0; k < 8; k++) {
+            writers.add(CompletableFuture.runAsync(() -> {
+                for (int n = 0; n < 10_000; n++) {
+                    proxy.add(n, n);
+                }
+            }));
+        }
+        CompletableFuture.allOf(writers.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        assertEquals(80_000, recorder.recorded());
+        var records = recorder.snapshot();
+        assertTrue(records.size() <= 1024);
+        assertTrue(records.size() >= 1024 - recorder.dropped());
+        for (int k = 1; k < records.size(); k++) {
+            assertTrue(records.get(k - 1).sequence() < records.get(k).sequence());
+        }
+        for (var record : records) {
+            assertEquals(record.argument(0), record.argument(1));
+        }
+    }
+
+    @Test
+    void releaseUnloadedClasses() throws Exception {
+        var recorder = CallRecorder.ofCapacity(16);
+        var proxy = createProxy(recorder);
+        var exceptionClass = recordUnloadableArgument(proxy);
+
+        for (int k = 0; k < 100 && exceptionClass.get() != null; k++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(exceptionClass.get());
+        assertEquals("?", recorder.snapshot().get(0).argument(1).replaceAll("@.*", ""));
+    }
+
+    private static WeakReference<Class<?>> recordUnloadableArgument(Service proxy) throws Exception {
+        var type = new ByteBuddy()
+            .subclass(Object.class)
+            .make()
+            .load(null, ClassLoadingStrategy.Default.WRAPPER)
+            .getLoaded();
+        proxy.call("name", type.getConstructor().newInstance(), 0);
+        return new WeakReference<>(type);
+    }
+
+    @Test
+    void rejectInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> CallRecorder.ofCapacity(0));
+    }
+
+}
@@ -0,0 +1,109 @@
+package michid.proxybuddy.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.jupiter.api.Test;
+
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+
+import michid.proxybuddy.ProxyBuddy;
+
+public class CollectibleClassTest {
+
+    public static class Target {
+        public int get() {
+            return 0;
+        }
+    }
+
+    static class PackagePrivate {
+        public PackagePrivate() { }
+    }
+
+    @Test
+    void collectibleProxy() throws Exception {
+        var proxy1 = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 1)
+            .withCollectibleClass()
+            .createProxy();
+        var proxy2 = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 2)
+            .withCollectibleClass()
+            .createProxy();
+        var proxy3 = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 3)
+            .createProxy();
+
+        assertEquals(1, proxy1.get());
+        assertEquals(2, proxy2.get());
+        assertSame(proxy1.getClass(), proxy2.getClass());
+        assertNotSame(proxy1.getClass(), proxy3.getClass());
+        assertNotSame(Target.class.getClassLoader(), proxy1.getClass().getClassLoader());
+    }
+
+    @Test
+    void unloadUnreachableProxyClass() throws Exception {
+        var proxyClass = collectibleProxyClass();
+
+        for (int k = 0; k < 100 && proxyClass.get() != null; k++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(proxyClass.get());
+    }
+
+    private static WeakReference<Class<?>> collectibleProxyClass() throws Exception {
+        var proxy = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 42)
+            .withCollectibleClass()
+            .withInterface(Runnable.class)
+            .createProxy();
+        assertEquals(42, proxy.get());
+        return new WeakReference<>(proxy.getClass());
+    }
+
+    @Test
+    void releaseShapeOfUnloadedProxyClass() throws Exception {
+        var matcher = collectibleProxyMatcher();
+
+        for (int k = 0; k < 100 && matcher.get() != null; k++) {
+            System.gc();
+            Thread.sleep(10);
+            // Cache lookups expunge the shapes of unloaded proxy classes
+            new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 0)
+                .withCollectibleClass()
+                .createProxy();
+        }
+
+        assertNull(matcher.get());
+    }
+
+    private static WeakReference<ElementMatcher<MethodDescription>> collectibleProxyMatcher() throws Exception {
+        // Matchers without equals make the shape of the proxy class unique
+        ElementMatcher<MethodDescription> matcher = new ElementMatcher<>() {
+            @Override
+            public boolean matches(MethodDescription method) {
+                return method.getName().equals("get");
+            }
+        };
+        var proxy = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 42)
+            .withCollectibleClass()
+            .intercepting(matcher)
+            .createProxy();
+        assertEquals(42, proxy.get());
+        return new WeakReference<>(matcher);
+    }
+
+    @Test
+    void requirePublicTypes() {
+        var proxyBuddy = new ProxyBuddy<>(PackagePrivate.class, (thisProxy, pipe, method, arguments) -> null)
+            .withCollectibleClass();
+
+        assertThrows(IllegalArgumentException.class, proxyBuddy::createProxy);
+    }
+
+}
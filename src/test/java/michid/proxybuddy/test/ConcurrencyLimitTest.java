@@ -0,0 +1,181 @@
+package michid.proxybuddy.test;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import michid.proxybuddy.ConcurrencyLimit;
+import michid.proxybuddy.ProxyBuddy;
+
+public class ConcurrencyLimitTest {
+
+    public static class Client {
+        public int fetch() {
+            return 0;
+        }
+
+        public int other() {
+            return 0;
+        }
+    }
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setup() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void rejectCallsOverLimit() throws Exception {
+        var entered = new CountDownLatch(2);
+        var release = new CountDownLatch(1);
+        var limit = ConcurrencyLimit.of(2);
+        var proxy = new ProxyBuddy<>(Client.class, (thisProxy, pipe, method, arguments) -> {
+                entered.countDown();
+                release.await();
+                return 1;
+            })
+            .withConcurrencyLimit(named("fetch"), limit)
+            .createProxy();
+
+        var calls = new ArrayList<Future<Integer>>();
+        calls.add(executor.submit(proxy::fetch));
+        calls.add(executor.submit(proxy::fetch));
+        assertTrue(entered.await(10, SECONDS));
+
+        assertThrows(RejectedExecutionException.class, proxy::fetch);
+        var fetch = Client.class.getMethod("fetch");
+        assertEquals(2, limit.stats(fetch).inFlight());
+        assertEquals(1, limit.stats(fetch).rejected());
+
+        release.countDown();
+        for (var call : calls) {
+            assertEquals(1, call.get(10, SECONDS));
+        }
+        assertEquals(0, limit.stats(fetch).inFlight());
+        assertEquals(1, proxy.fetch());
+    }
+
+    @Test
+    void waitForPermit() throws Exception {
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var limit = ConcurrencyLimit.of(1).onOverflow(ConcurrencyLimit.Overflow.WAIT);
+        var proxy = new ProxyBuddy<>(Client.class, (thisProxy, pipe, method, arguments) -> {
+                entered.countDown();
+                release.await();
+                return 1;
+            })
+            .withConcurrencyLimit(named("fetch"), limit)
+            .createProxy();
+
+        var first = executor.submit(proxy::fetch);
+        assertTrue(entered.await(10, SECONDS));
+        var second = executor.submit(proxy::fetch);
+        Thread.sleep(50);
+        assertFalse(second.isDone());
+
+        release.countDown();
+        assertEquals(1, first.get(10, SECONDS));
+        assertEquals(1, second.get(10, SECONDS));
+        assertEquals(0, limit.stats(Client.class.getMethod("fetch")).rejected());
+    }
+
+    @Test
+    void shareLimitBetweenProxies() throws Exception {
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var limit = ConcurrencyLimit.of(1);
+        var proxyBuddy = new ProxyBuddy<>(Client.class, (thisProxy, pipe, method, arguments) -> {
+                entered.countDown();
+                release.await();
+                return 1;
+            })
+            .withConcurrencyLimit(named("fetch"), limit);
+
+        var call = executor.submit(proxyBuddy.createProxy()::fetch);
+        assertTrue(entered.await(10, SECONDS));
+        assertThrows(RejectedExecutionException.class, proxyBuddy.createProxy()::fetch);
+
+        release.countDown();
+        assertEquals(1, call.get(10, SECONDS));
+    }
+
+    @Test
+    void limitMatchedMethodsOnly() throws Exception {
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var proxy = new ProxyBuddy<>(Client.class, (thisProxy, pipe, method, arguments) -> {
+                if (method.getName().equals("fetch")) {
+                    entered.countDown();
+                    release.await();
+                }
+                return 1;
+            })
+            .withConcurrencyLimit(named("fetch"), ConcurrencyLimit.of(1))
+            .createProxy();
+
+        var call = executor.submit(proxy::fetch);
+        assertTrue(entered.await(10, SECONDS));
+        assertEquals(1, proxy.other());
+
+        release.countDown();
+        assertEquals(1, call.get(10, SECONDS));
+    }
+
+    @Test
+    void neverExceedLimit() throws Exception {
+        var inFlight = new AtomicInteger();
+        var maxInFlight = new AtomicInteger();
+        var limit = ConcurrencyLimit.of(3).onOverflow(ConcurrencyLimit.Overflow.WAIT);
+        var proxy = new ProxyBuddy<>(Client.class, (thisProxy, pipe, method, arguments) -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                Thread.yield();
+                inFlight.decrementAndGet();
+                return 1;
+            })
+            .withConcurrencyLimit(named("fetch"), limit)
+            .createProxy();
+
+        var calls = new ArrayList<CompletableFuture<Void>>();
+        for (int k = 0; k < 8; k++) {
+            calls.add(CompletableFuture.runAsync(() -> {
+                for (int n = 0; n < 1000; n++) {
+                    proxy.fetch();
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).get(30, SECONDS);
+
+        assertTrue(maxInFlight.get() <= 3);
+        assertEquals(0, limit.stats(Client.class.getMethod("fetch")).inFlight());
+    }
+
+    @Test
+    void rejectInvalidLimits() {
+        assertThrows(IllegalArgumentException.class, () -> ConcurrencyLimit.of(0));
+    }
+
+}
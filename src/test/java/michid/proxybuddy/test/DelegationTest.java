@@ -0,0 +1,138 @@
+package michid.proxybuddy.test;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import michid.proxybuddy.ProxyBuddy;
+import michid.proxybuddy.ProxyBuddy.DelegationHook;
+
+public class DelegationTest {
+
+    public interface Named {
+        String name();
+    }
+
+    public interface Extra {
+        int extra();
+    }
+
+    public static class Target implements Named {
+        private final String name;
+        private int value;
+
+        public Target() {
+            this("proxy");
+        }
+
+        public Target(String name) {
+            this.name = name;
+        }
+
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        public void set(int value) {
+            this.value = value;
+        }
+
+        public int get() {
+            return value;
+        }
+
+        public void fail() {
+            throw new IllegalStateException(name);
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return "Target " + name;
+        }
+    }
+
+    @Test
+    void delegateToTarget() throws Exception {
+        var target = new Target("target");
+        var proxy = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 42)
+            .withInterface(Extra.class)
+            .withTarget(target)
+            .createProxy();
+
+        assertEquals(3, proxy.add(1, 2));
+        proxy.set(7);
+        assertEquals(7, target.get());
+        assertEquals(7, proxy.get());
+        assertEquals("target", proxy.name());
+        assertEquals("target", ((Named) proxy).name());
+        assertEquals("Target target", proxy.toString());
+        assertEquals(42, ((Extra) proxy).extra());
+
+        var ex = assertThrows(IllegalStateException.class, proxy::fail);
+        assertEquals("target", ex.getMessage());
+    }
+
+    @Test
+    void supplierIsCalledPerProxy() throws Exception {
+        var counter = new int[1];
+        var factory = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> null)
+            .delegatingTo(() -> new Target("target" + counter[0]++))
+            .buildFactory();
+
+        var proxy1 = factory.newInstance((thisProxy, pipe, method, arguments) -> null);
+        var proxy2 = factory.newInstance((thisProxy, pipe, method, arguments) -> null);
+
+        assertEquals("target0", proxy1.name());
+        assertEquals("target1", proxy2.name());
+    }
+
+    @Test
+    void hooksAndRoutes() throws Exception {
+        var calls = new ArrayList<String>();
+        var hook = new DelegationHook<Target>() {
+            @Override
+            public void before(Target proxy, Method method) {
+                calls.add("before " + method.getName());
+            }
+
+            @Override
+            public void after(Target proxy, Method method) {
+                calls.add("after " + method.getName());
+            }
+        };
+
+        var proxy = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> null)
+            .delegatingTo(() -> new Target("target"), hook)
+            .onMethod(named("get"), (thisProxy, pipe, method, arguments) -> 42)
+            .createProxy();
+
+        assertEquals(3, proxy.add(1, 2));
+        assertThrows(IllegalStateException.class, proxy::fail);
+        assertEquals(42, proxy.get());
+        assertEquals(List.of("before add", "after add", "before fail", "after fail"), calls);
+    }
+
+    @Test
+    void equalityWitness() throws Exception {
+        var target = new Target("target");
+        var proxy = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> null)
+            .withTarget(target)
+            .withProxyCanEqualTarget(target)
+            .createProxy();
+
+        assertEquals(proxy, target);
+        assertEquals(target.hashCode(), proxy.hashCode());
+    }
+
+}
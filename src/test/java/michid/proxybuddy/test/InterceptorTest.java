@@ -0,0 +1,185 @@
+package michid.proxybuddy.test;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import michid.proxybuddy.ProxyBuddy;
+import michid.proxybuddy.ProxyBuddy.Interceptor;
+import michid.proxybuddy.ProxyBuddy.Invocation;
+import michid.proxybuddy.ProxyBuddy.SuperCallInvocationHandler;
+
+public class InterceptorTest {
+
+    public static class Target {
+        public int a(int value) {
+            return value;
+        }
+
+        public int b(int value) {
+            return value;
+        }
+
+        public int c(int value) {
+            return value;
+        }
+    }
+
+    private static Interceptor<Target> recording(List<String> calls, String name) {
+        return invocation -> {
+            calls.add(name + " " + invocation.method().getName());
+            return invocation.proceed();
+        };
+    }
+
+    @Test
+    void chainPerMethod() throws Exception {
+        var calls = new ArrayList<String>();
+        var target = new Target();
+        var proxy = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> pipe.apply(target))
+            .intercept(recording(calls, "all"))
+            .interceptMethods(named("a").or(named("b")), recording(calls, "ab"))
+            .interceptMethods(named("a"), recording(calls, "a1"), recording(calls, "a2"))
+            .createProxy();
+
+        assertEquals(1, proxy.a(1));
+        assertEquals(List.of("all a", "ab a", "a1 a", "a2 a"), calls);
+
+        calls.clear();
+        assertEquals(2, proxy.b(2));
+        assertEquals(List.of("all b", "ab b"), calls);
+
+        calls.clear();
+        assertEquals(3, proxy.c(3));
+        assertEquals(List.of("all c"), calls);
+    }
+
+    @Test
+    void modifyArgumentsAndResults() throws Exception {
+        var proxy = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> arguments[0])
+            .intercept(invocation -> {
+                invocation.arguments()[0] = (Integer) invocation.arguments()[0] * 10;
+                return invocation.proceed();
+            })
+            .intercept(invocation -> (Integer) invocation.proceed() + 1)
+            .createProxy();
+
+        assertEquals(11, proxy.a(1));
+    }
+
+    @Test
+    void proceedRepeatedly() throws Exception {
+        var calls = new ArrayList<String>();
+        var attempts = new int[1];
+        var proxy = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> {
+                if (attempts[0]++ < 2) {
+                    throw new IllegalStateException();
+                }
+                return arguments[0];
+            })
+            .intercept(invocation -> {
+                while (true) {
+                    try {
+                        return invocation.proceed();
+                    } catch (IllegalStateException e) {
+                        calls.add("retry");
+                    }
+                }
+            })
+            .intercept(recording(calls, "inner"))
+            .createProxy();
+
+        assertEquals(5, proxy.a(5));
+        assertEquals(List.of("inner a", "retry", "inner a", "retry", "inner a"), calls);
+    }
+
+    @Test
+    void longChains() throws Exception {
+        var calls = new ArrayList<String>();
+        var target = new Target();
+        var builder = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> pipe.apply(target));
+        var expected = new ArrayList<String>();
+        for (int k = 0; k < 6; k++) {
+            builder = builder.intercept(recording(calls, "i" + k));
+            expected.add("i" + k + " a");
+        }
+        var proxy = builder.createProxy();
+
+        assertEquals(1, proxy.a(1));
+        assertEquals(expected, calls);
+    }
+
+    @Test
+    void proceedAfterReturning() throws Exception {
+        var calls = new ArrayList<String>();
+        var invocations = new ArrayList<Invocation<Target>>();
+        var target = new Target();
+        var proxy = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> pipe.apply(target))
+            .intercept(recording(calls, "outer"))
+            .intercept(invocation -> {
+                invocations.add(invocation);
+                return 0;
+            })
+            .intercept(recording(calls, "inner"))
+            .createProxy();
+
+        assertEquals(0, proxy.a(1));
+        assertEquals(0, proxy.b(2));
+        assertEquals(List.of("outer a", "outer b"), calls);
+
+        assertEquals(1, invocations.get(0).proceed());
+        assertEquals(2, invocations.get(1).proceed());
+        assertEquals(List.of("outer a", "outer b", "inner a", "inner b"), calls);
+    }
+
+    @Test
+    void interceptSuperCalls() throws Exception {
+        var calls = new ArrayList<String>();
+        var proxy = new ProxyBuddy<>(Target.class, (SuperCallInvocationHandler<Target>)
+                (thisProxy, superCall, method, arguments) -> superCall.call())
+            .withSuperCall()
+            .interceptMethods(named("a"), recording(calls, "super"))
+            .createProxy();
+
+        assertEquals(1, proxy.a(1));
+        assertEquals(2, proxy.b(2));
+        assertEquals(List.of("super a"), calls);
+    }
+
+    @Test
+    void routesTakePrecedence() throws Exception {
+        var calls = new ArrayList<String>();
+        var proxy = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 0)
+            .intercept(recording(calls, "all"))
+            .onMethod(named("c"), (thisProxy, pipe, method, arguments) -> 42)
+            .createProxy();
+
+        assertEquals(42, proxy.c(3));
+        assertEquals(List.of(), calls);
+    }
+
+    @Test
+    void matchersArePartOfShape() throws Exception {
+        var proxy1 = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 1)
+            .interceptMethods(named("a"), invocation -> invocation.proceed())
+            .createProxy();
+        var proxy2 = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 2)
+            .interceptMethods(named("a"), invocation -> 20)
+            .createProxy();
+        var proxy3 = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 3)
+            .interceptMethods(named("b"), invocation -> invocation.proceed())
+            .createProxy();
+
+        assertSame(proxy1.getClass(), proxy2.getClass());
+        assertNotSame(proxy1.getClass(), proxy3.getClass());
+        assertEquals(1, proxy1.a(0));
+        assertEquals(20, proxy2.a(0));
+    }
+
+}
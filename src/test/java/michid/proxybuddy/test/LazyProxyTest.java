@@ -0,0 +1,153 @@
+package michid.proxybuddy.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import michid.proxybuddy.ProxyBuddy;
+
+public class LazyProxyTest {
+
+    public interface Named {
+        String name();
+    }
+
+    public static class Service {
+        public int add(int a, int b) {
+            return a + b;
+        }
+    }
+
+    public static class NamedService extends Service implements Named {
+        @Override
+        public String name() {
+            return "named";
+        }
+    }
+
+    public static class ExpensiveService extends Service {
+        static final AtomicInteger CONSTRUCTED = new AtomicInteger();
+
+        public ExpensiveService() {
+            CONSTRUCTED.incrementAndGet();
+        }
+    }
+
+    @Test
+    void createTargetOnFirstCall() throws Exception {
+        var created = new AtomicInteger();
+        var proxy = ProxyBuddy.lazy(Service.class, () -> {
+                created.incrementAndGet();
+                return new Service();
+            })
+            .createProxy();
+
+        assertEquals(0, created.get());
+        assertEquals(3, proxy.add(1, 2));
+        assertEquals(5, proxy.add(2, 3));
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void doNotConstructBeforeFirstCall() throws Exception {
+        var constructed = ExpensiveService.CONSTRUCTED.get();
+        var proxy = ProxyBuddy.lazy(ExpensiveService.class, ExpensiveService::new)
+            .createProxy();
+
+        assertEquals(constructed, ExpensiveService.CONSTRUCTED.get());
+        assertEquals(3, proxy.add(1, 2));
+        assertEquals(constructed + 1, ExpensiveService.CONSTRUCTED.get());
+    }
+
+    @Test
+    void createTargetOncePerProxy() throws Exception {
+        var created = new AtomicInteger();
+        var proxyBuddy = ProxyBuddy.lazy(Service.class, () -> {
+            created.incrementAndGet();
+            return new Service();
+        });
+
+        proxyBuddy.createProxy().add(1, 2);
+        proxyBuddy.createProxy().add(1, 2);
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    void concurrentFirstCalls() throws Exception {
+        var created = new AtomicInteger();
+        var start = new CountDownLatch(1);
+        var proxy = ProxyBuddy.lazy(Service.class, () -> {
+                created.incrementAndGet();
+                return new Service();
+            })
+            .createProxy();
+
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var results = new ArrayList<Future<Integer>>();
+            for (int k = 0; k < 8; k++) {
+                int value = k;
+                results.add(executor.submit((Callable<Integer>) () -> {
+                    start.await();
+                    return proxy.add(value, 1);
+                }));
+            }
+            start.countDown();
+
+            for (int k = 0; k < 8; k++) {
+                assertEquals(k + 1, results.get(k).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void delegateInterfaceMethods() throws Exception {
+        var proxy = ProxyBuddy.lazy(Service.class, NamedService::new)
+            .withInterface(Named.class)
+            .createProxy();
+
+        assertEquals("named", ((Named) proxy).name());
+        assertEquals(3, proxy.add(1, 2));
+    }
+
+    @Test
+    void equalityWitnessDoesNotCreateTarget() throws Exception {
+        var created = new AtomicInteger();
+        var proxyBuddy = ProxyBuddy.lazy(Service.class, () -> {
+                created.incrementAndGet();
+                return new Service();
+            })
+            .withProxyNeverEqualsTarget("witness");
+
+        var proxy1 = proxyBuddy.createProxy();
+        var proxy2 = proxyBuddy.createProxy();
+        assertEquals(proxy1, proxy2);
+        assertEquals(proxy1.hashCode(), proxy2.hashCode());
+        assertNotEquals(proxy1, ProxyBuddy.lazy(Service.class, Service::new)
+            .withProxyNeverEqualsTarget("other")
+            .createProxy());
+        assertEquals(0, created.get());
+    }
+
+    @Test
+    void isProxy() throws Exception {
+        var proxy = ProxyBuddy.lazy(Service.class, Service::new).createProxy();
+
+        assertTrue(ProxyBuddy.isProxy(proxy));
+        assertFalse(ProxyBuddy.isProxy(new Service()));
+    }
+
+}
@@ -0,0 +1,169 @@
+package michid.proxybuddy.test;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import michid.proxybuddy.CachePolicy;
+import michid.proxybuddy.ProxyBuddy;
+
+public class MemoizationTest {
+
+    public static class Lookup {
+        public String constant() {
+            return "constant";
+        }
+
+        public String lookup(String key) {
+            return key;
+        }
+
+        public int sum(int a, int b) {
+            return a + b;
+        }
+
+        public int length(int[] values) {
+            return values.length;
+        }
+
+        public int sum3(int a, int b, int c) {
+            return a + b + c;
+        }
+    }
+
+    private static Lookup createProxy(AtomicInteger calls, CachePolicy policy) throws Exception {
+        var target = new Lookup();
+        return new ProxyBuddy<>(Lookup.class, (thisProxy, pipe, method, arguments) -> {
+                calls.incrementAndGet();
+                return pipe.apply(target);
+            })
+            .withMemoization(named("constant").or(named("lookup")).or(named("sum")).or(named("length")).or(named("sum3")),
+                policy)
+            .createProxy();
+    }
+
+    @Test
+    void memoizeByArguments() throws Exception {
+        var calls = new AtomicInteger();
+        var proxy = createProxy(calls, CachePolicy.maximumSize(100));
+
+        assertEquals("constant", proxy.constant());
+        assertEquals("constant", proxy.constant());
+        assertEquals("a", proxy.lookup("a"));
+        assertEquals("a", proxy.lookup("a"));
+        assertEquals("b", proxy.lookup("b"));
+        assertEquals(3, proxy.sum(1, 2));
+        assertEquals(3, proxy.sum(1, 2));
+        assertEquals(4, proxy.sum(2, 2));
+        assertEquals(6, proxy.sum3(1, 2, 3));
+        assertEquals(6, proxy.sum3(1, 2, 3));
+        assertEquals(2, proxy.length(new int[]{1, 2}));
+        assertEquals(2, proxy.length(new int[]{1, 2}));
+        assertEquals(7, calls.get());
+    }
+
+    @Test
+    void cachesArePerProxy() throws Exception {
+        var calls = new AtomicInteger();
+        var policy = CachePolicy.maximumSize(100);
+
+        createProxy(calls, policy).lookup("a");
+        createProxy(calls, policy).lookup("a");
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void evictLeastRecentlyUsed() throws Exception {
+        var calls = new AtomicInteger();
+        var policy = CachePolicy.maximumSize(1);
+        var proxy = createProxy(calls, policy);
+
+        proxy.lookup("a");
+        proxy.lookup("b");
+        proxy.lookup("a");
+        assertEquals(3, calls.get());
+
+        var stats = policy.stats(Lookup.class.getMethod("lookup", String.class));
+        assertEquals(0, stats.hits());
+        assertEquals(3, stats.misses());
+        assertEquals(2, stats.evictions());
+    }
+
+    @Test
+    void boundTotalSize() throws Exception {
+        var policy = CachePolicy.maximumSize(17);
+        var proxy = createProxy(new AtomicInteger(), policy);
+        for (int k = 0; k < 1000; k++) {
+            proxy.lookup("key" + k);
+        }
+
+        var stats = policy.stats(Lookup.class.getMethod("lookup", String.class));
+        assertEquals(1000, stats.misses());
+        assertEquals(17, stats.misses() - stats.evictions());
+    }
+
+    @Test
+    void expireAfterWrite() throws Exception {
+        var calls = new AtomicInteger();
+        var policy = CachePolicy.maximumSize(100).expireAfterWrite(Duration.ofMillis(10));
+        var proxy = createProxy(calls, policy);
+
+        proxy.lookup("a");
+        proxy.lookup("a");
+        assertEquals(1, calls.get());
+
+        Thread.sleep(20);
+        proxy.lookup("a");
+        assertEquals(2, calls.get());
+        assertEquals(1, policy.stats(Lookup.class.getMethod("lookup", String.class)).evictions());
+    }
+
+    @Test
+    void stats() throws Exception {
+        var policy = CachePolicy.maximumSize(100);
+        var proxy = createProxy(new AtomicInteger(), policy);
+
+        for (int k = 0; k < 4; k++) {
+            proxy.sum(k % 2, 0);
+        }
+
+        var stats = policy.stats(Lookup.class.getMethod("sum", int.class, int.class));
+        assertEquals(2, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(0.5, stats.hitRate());
+        assertEquals(1, policy.stats().size());
+
+        policy.resetStats();
+        assertEquals(0, policy.stats(Lookup.class.getMethod("sum", int.class, int.class)).misses());
+    }
+
+    @Test
+    void doNotCacheExceptions() throws Exception {
+        var calls = new AtomicInteger();
+        var proxy = new ProxyBuddy<>(Lookup.class, (thisProxy, pipe, method, arguments) -> {
+                if (calls.incrementAndGet() == 1) {
+                    throw new IllegalStateException();
+                }
+                return "value";
+            })
+            .withMemoization(named("lookup"), CachePolicy.maximumSize(10))
+            .createProxy();
+
+        assertThrows(IllegalStateException.class, () -> proxy.lookup("a"));
+        assertEquals("value", proxy.lookup("a"));
+        assertEquals("value", proxy.lookup("a"));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void rejectInvalidPolicies() {
+        assertThrows(IllegalArgumentException.class, () -> CachePolicy.maximumSize(0));
+        assertThrows(IllegalArgumentException.class, () -> CachePolicy.maximumSize(1).expireAfterWrite(Duration.ZERO));
+    }
+
+}
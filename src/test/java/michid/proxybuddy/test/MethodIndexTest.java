@@ -0,0 +1,146 @@
+package michid.proxybuddy.test;
+
+import static net.bytebuddy.matcher.ElementMatchers.any;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.junit.jupiter.api.Test;
+
+import michid.proxybuddy.ProxyBuddy;
+import michid.proxybuddy.ProxyBuddy.IndexedInvocationHandler;
+import michid.proxybuddy.ProxyMethods;
+
+public class MethodIndexTest {
+
+    public interface Named {
+        String name();
+    }
+
+    public static class Counter {
+        private int count;
+
+        public int add(int value) {
+            return count += value;
+        }
+
+        public int get() {
+            return count;
+        }
+    }
+
+    @Test
+    void denseIndexes() throws Exception {
+        var indexes = new HashSet<Integer>();
+        var proxy = new ProxyBuddy<>(Counter.class, (IndexedInvocationHandler<Counter>)
+                (thisProxy, pipe, method, arguments) -> {
+                    indexes.add(method);
+                    return ProxyMethods.of(thisProxy.getClass()).method(method).getReturnType() == String.class
+                        ? "name"
+                        : 0;
+                })
+            .withInterface(Named.class)
+            .withMethodIndex()
+            .createProxy();
+
+        proxy.add(1);
+        proxy.get();
+        ((Named) proxy).name();
+
+        var methods = ProxyMethods.of(proxy.getClass());
+        assertEquals(3, indexes.size());
+        for (var index : indexes) {
+            assertTrue(index >= 0 && index < methods.size());
+        }
+    }
+
+    @Test
+    void mapIndexesToMethods() throws Exception {
+        var target = new Counter();
+        var calls = new AtomicLongArray(16);
+        var proxy = new ProxyBuddy<>(Counter.class, (IndexedInvocationHandler<Counter>)
+                (thisProxy, pipe, method, arguments) -> {
+                    calls.incrementAndGet(method);
+                    return pipe.apply(target);
+                })
+            .withMethodIndex()
+            .createProxy();
+
+        assertEquals(1, proxy.add(1));
+        assertEquals(3, proxy.add(2));
+        assertEquals(3, proxy.get());
+
+        var methods = ProxyMethods.of(proxy.getClass());
+        var add = methods.indexOf(Counter.class.getMethod("add", int.class));
+        var get = methods.indexOf(Counter.class.getMethod("get"));
+        assertEquals(Counter.class.getMethod("add", int.class), methods.method(add));
+        assertEquals(2, calls.get(add));
+        assertEquals(1, calls.get(get));
+    }
+
+    @Test
+    void callTargetThroughMethodHandle() throws Exception {
+        var target = new Counter();
+        var methods = new ProxyMethods[1];
+        var proxy = new ProxyBuddy<>(Counter.class, (IndexedInvocationHandler<Counter>)
+                (thisProxy, pipe, method, arguments) -> {
+                    try {
+                        return methods[0].methodHandle(method).bindTo(target).invokeWithArguments(arguments);
+                    } catch (Throwable e) {
+                        throw new AssertionError(e);
+                    }
+                })
+            .withMethodIndex()
+            .createProxy();
+        methods[0] = ProxyMethods.of(proxy.getClass());
+
+        assertEquals(5, proxy.add(5));
+        assertEquals(5, proxy.get());
+        assertEquals(5, target.get());
+    }
+
+    @Test
+    void requireIndexedInvocationHandler() {
+        var proxyBuddy = new ProxyBuddy<>(Counter.class, (thisProxy, pipe, method, arguments) -> null)
+            .withMethodIndex();
+
+        assertThrows(IllegalArgumentException.class, proxyBuddy::createProxy);
+    }
+
+    @Test
+    void rejectSuperCall() {
+        var proxyBuddy = new ProxyBuddy<>(Counter.class, (IndexedInvocationHandler<Counter>)
+                (thisProxy, pipe, method, arguments) -> null)
+            .withMethodIndex()
+            .withSuperCall();
+
+        assertThrows(IllegalArgumentException.class, proxyBuddy::createProxy);
+    }
+
+    @Test
+    void noMethodTableWithoutIndex() throws Exception {
+        var proxy = new ProxyBuddy<>(Counter.class, (thisProxy, pipe, method, arguments) -> 0)
+            .createProxy();
+
+        assertThrows(IllegalArgumentException.class, () -> ProxyMethods.of(proxy.getClass()));
+    }
+
+    @Test
+    void requireMethodIndex() throws Exception {
+        IndexedInvocationHandler<Counter> handler = (thisProxy, pipe, method, arguments) -> method;
+        var proxyBuddy = new ProxyBuddy<>(Counter.class, handler);
+
+        assertThrows(IllegalArgumentException.class, proxyBuddy::createProxy);
+        var factory = proxyBuddy.withMethodIndex().buildFactory();
+        assertTrue(factory.newInstance(handler).get() >= 0);
+
+        var plainFactory = new ProxyBuddy<>(Counter.class, (thisProxy, pipe, method, arguments) -> 0)
+            .buildFactory();
+        assertThrows(IllegalArgumentException.class, () -> plainFactory.newInstance(handler));
+        assertThrows(IllegalArgumentException.class, () -> proxyBuddy.onMethod(any(), handler));
+    }
+
+}
@@ -0,0 +1,98 @@
+package michid.proxybuddy.test;
+
+import static java.lang.StackWalker.Option.RETAIN_CLASS_REFERENCE;
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static net.bytebuddy.matcher.ElementMatchers.returns;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import michid.proxybuddy.ProxyBuddy;
+
+public class MethodRoutingTest {
+
+    public static class Target {
+        public int m1() {
+            return 1;
+        }
+
+        public int m2() {
+            return 2;
+        }
+
+        public String m3() {
+            return "3";
+        }
+    }
+
+    public interface I {
+        String i();
+    }
+
+    @Test
+    void routeMethods() throws Exception {
+        var proxy = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> "default")
+            .onMethod(named("m1"), (thisProxy, pipe, method, arguments) -> 10)
+            .onMethod(named("m2"), (thisProxy, pipe, method, arguments) -> 20)
+            .createProxy();
+
+        assertEquals(10, proxy.m1());
+        assertEquals(20, proxy.m2());
+        assertEquals("default", proxy.m3());
+    }
+
+    @Test
+    void lastRouteTakesPrecedence() throws Exception {
+        var proxy = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> "default")
+            .withInterface(I.class)
+            .onMethod(returns(String.class), (thisProxy, pipe, method, arguments) -> "string")
+            .onMethod(named("i"), (thisProxy, pipe, method, arguments) -> "i")
+            .createProxy();
+
+        assertEquals("string", proxy.m3());
+        assertEquals("i", ((I) proxy).i());
+    }
+
+    @Test
+    void routesArePartOfShape() throws Exception {
+        var proxy1 = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 0)
+            .onMethod(named("m1"), (thisProxy, pipe, method, arguments) -> 1)
+            .createProxy();
+        var proxy2 = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 0)
+            .onMethod(named("m1"), (thisProxy, pipe, method, arguments) -> 2)
+            .createProxy();
+        var proxy3 = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 0)
+            .onMethod(named("m2"), (thisProxy, pipe, method, arguments) -> 3)
+            .createProxy();
+
+        assertSame(proxy1.getClass(), proxy2.getClass());
+        assertNotSame(proxy1.getClass(), proxy3.getClass());
+        assertEquals(1, proxy1.m1());
+        assertEquals(2, proxy2.m1());
+        assertEquals(3, proxy3.m2());
+    }
+
+    @Test
+    void callHandlersFromProxyMethods() throws Exception {
+        var callers = new ArrayList<Class<?>>();
+        var target = new Target();
+        var proxy = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> "default")
+            .onMethod(named("m1"), (thisProxy, pipe, method, arguments) -> {
+                callers.add(StackWalker.getInstance(RETAIN_CLASS_REFERENCE)
+                    .walk(frames -> frames.skip(1).findFirst())
+                    .orElseThrow()
+                    .getDeclaringClass());
+                return pipe.apply(target);
+            })
+            .createProxy();
+
+        assertEquals(1, proxy.m1());
+        assertEquals(List.of(proxy.getClass()), callers);
+    }
+
+}
@@ -0,0 +1,168 @@
+package michid.proxybuddy.test;
+
+import static net.bytebuddy.matcher.ElementMatchers.any;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import michid.proxybuddy.ProxyBuddy;
+
+public class MixinTest {
+
+    public static class Entity {
+        public String name() {
+            return "entity";
+        }
+    }
+
+    public interface Named {
+        String name();
+    }
+
+    public interface Base {
+        int base();
+    }
+
+    public interface Counter extends Base {
+        int count();
+
+        default int twice() {
+            return 2 * count();
+        }
+    }
+
+    public interface Greeter {
+        String greet(String name);
+    }
+
+    public static class CounterImpl implements Counter {
+        @Override
+        public int base() {
+            return 1;
+        }
+
+        @Override
+        public int count() {
+            return 21;
+        }
+
+        @Override
+        public int twice() {
+            return 42;
+        }
+    }
+
+    @Test
+    void delegateToMixins() throws Exception {
+        var handled = new ArrayList<String>();
+        var proxy = new ProxyBuddy<>(Entity.class, (thisProxy, pipe, method, arguments) -> {
+                handled.add(method.getName());
+                return "handler";
+            })
+            .withInterface(Counter.class, new CounterImpl())
+            .withInterface(Greeter.class, name -> "Hello " + name)
+            .createProxy();
+
+        assertEquals(21, ((Counter) proxy).count());
+        assertEquals(42, ((Counter) proxy).twice());
+        assertEquals(1, ((Counter) proxy).base());
+        assertEquals("Hello world", ((Greeter) proxy).greet("world"));
+        assertTrue(handled.isEmpty());
+
+        assertEquals("handler", proxy.name());
+        assertEquals(List.of("name"), handled);
+    }
+
+    @Test
+    void superClassMethodsReachHandler() throws Exception {
+        var proxy = new ProxyBuddy<>(Entity.class, (thisProxy, pipe, method, arguments) -> "handler")
+            .withInterface(Named.class, () -> "named")
+            .createProxy();
+
+        assertEquals("handler", proxy.name());
+        assertEquals("handler", ((Named) proxy).name());
+    }
+
+    @Test
+    void bypassInterceptors() throws Exception {
+        var intercepted = new ArrayList<String>();
+        var proxy = new ProxyBuddy<>(Entity.class, (thisProxy, pipe, method, arguments) -> "handler")
+            .withInterface(Greeter.class, name -> name)
+            .intercept(invocation -> {
+                intercepted.add(invocation.method().getName());
+                return invocation.proceed();
+            })
+            .createProxy();
+
+        assertEquals("x", ((Greeter) proxy).greet("x"));
+        assertEquals("handler", proxy.name());
+        assertEquals(List.of("name"), intercepted);
+    }
+
+    @Test
+    void takePrecedenceOverRoutes() throws Exception {
+        var proxy = new ProxyBuddy<>(Entity.class, (thisProxy, pipe, method, arguments) -> "handler")
+            .withInterface(Counter.class, new CounterImpl())
+            .onMethod(any(), (thisProxy, pipe, method, arguments) -> method.getReturnType() == int.class ? 99 : "route")
+            .createProxy();
+
+        assertEquals(21, ((Counter) proxy).count());
+        assertEquals("route", proxy.name());
+    }
+
+    @Test
+    void objectMethodsNotDelegated() throws Exception {
+        var delegate = new CounterImpl();
+        var proxy = new ProxyBuddy<>(Entity.class, (thisProxy, pipe, method, arguments) -> pipe.apply(thisProxy))
+            .withInterface(Counter.class, delegate)
+            .withProxyNeverEqualsTarget(new Object())
+            .createProxy();
+
+        assertFalse(proxy.equals(delegate));
+        assertTrue(proxy.equals(proxy));
+    }
+
+    @Test
+    void reuseProxyClass() throws Exception {
+        var proxy1 = new ProxyBuddy<>(Entity.class, (thisProxy, pipe, method, arguments) -> null)
+            .withInterface(Greeter.class, name -> "1")
+            .createProxy();
+        var proxy2 = new ProxyBuddy<>(Entity.class, (thisProxy, pipe, method, arguments) -> null)
+            .withInterface(Greeter.class, name -> "2")
+            .createProxy();
+        var proxy3 = new ProxyBuddy<>(Entity.class, (thisProxy, pipe, method, arguments) -> null)
+            .withInterface(Greeter.class)
+            .createProxy();
+
+        assertSame(proxy1.getClass(), proxy2.getClass());
+        assertNotSame(proxy1.getClass(), proxy3.getClass());
+        assertEquals("1", ((Greeter) proxy1).greet(""));
+        assertEquals("2", ((Greeter) proxy2).greet(""));
+    }
+
+    @Test
+    void withInterfaceAndMixin() throws Exception {
+        var proxy = new ProxyBuddy<>(Entity.class, (thisProxy, pipe, method, arguments) -> null)
+            .withInterface(Greeter.class)
+            .withInterface(Greeter.class, name -> "mixin")
+            .createProxy();
+
+        assertEquals("mixin", ((Greeter) proxy).greet(""));
+    }
+
+    @Test
+    void rejectClasses() {
+        var proxyBuddy = new ProxyBuddy<>(Entity.class, (thisProxy, pipe, method, arguments) -> null);
+        assertThrows(IllegalArgumentException.class, () -> proxyBuddy.withInterface(Object.class, new Object()));
+        assertThrows(NullPointerException.class, () -> proxyBuddy.withInterface(Greeter.class, null));
+    }
+
+}
@@ -0,0 +1,93 @@
+package michid.proxybuddy.test;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import michid.proxybuddy.ProxyBuddy;
+
+public class PregeneratedProxyTest {
+
+    public static class Target {
+        public int get() {
+            return 0;
+        }
+    }
+
+    public static class Pregenerated {
+        private final String name;
+
+        public Pregenerated(String name) {
+            this.name = name;
+        }
+
+        public String name() {
+            return name;
+        }
+    }
+
+    public interface I1 { }
+
+    public interface I2 { }
+
+    @Test
+    void saveProxyClass(@TempDir File directory) throws Exception {
+        var name = new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> 42)
+            .saveProxyClass(directory);
+
+        assertTrue(name.startsWith(Target.class.getName()));
+        assertTrue(Files.exists(directory.toPath().resolve(name.replace('.', '/') + ".class")));
+    }
+
+    @Test
+    void namesAreStable(@TempDir File directory) throws Exception {
+        var name1 = new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> 1)
+            .withInterface(I1.class)
+            .withInterface(I2.class)
+            .saveProxyClass(directory);
+        var name2 = new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> 2)
+            .withInterface(I2.class)
+            .withInterface(I1.class)
+            .saveProxyClass(directory);
+        var name3 = new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> 3)
+            .withInterface(I1.class)
+            .saveProxyClass(directory);
+
+        assertEquals(name1, name2);
+        assertNotEquals(name1, name3);
+    }
+
+    @Test
+    void pickUpPregeneratedClass() throws Exception {
+        // Save to the test class path, from where the class loader of Pregenerated finds it
+        var classPath = new File(Pregenerated.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        var constructor = Pregenerated.class.getConstructor(String.class);
+        var name = new ProxyBuddy<>(Pregenerated.class, (proxy, pipe, method, arguments) -> null)
+            .withConstructor(constructor, "")
+            .saveProxyClass(classPath);
+
+        var proxy = new ProxyBuddy<>(Pregenerated.class, (thisProxy, pipe, method, arguments) -> "handled")
+            .withConstructor(constructor, "pregenerated")
+            .createProxy();
+
+        assertEquals(name, proxy.getClass().getName());
+        assertEquals("handled", proxy.name());
+    }
+
+    @Test
+    void routesCannotBePregenerated(@TempDir File directory) {
+        var proxyBuddy = new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> 42)
+            .onMethod(named("get"), (proxy, pipe, method, arguments) -> 43);
+
+        assertThrows(IllegalArgumentException.class, () -> proxyBuddy.saveProxyClass(directory));
+    }
+
+}
@@ -0,0 +1,72 @@
+package michid.proxybuddy.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+import michid.proxybuddy.ProxyBuddy;
+import michid.proxybuddy.ProxyClassCache;
+
+public class PrewarmTest {
+
+    public static class Target1 {
+        public int get() {
+            return 1;
+        }
+    }
+
+    public static class Target2 {
+        public int get() {
+            return 2;
+        }
+    }
+
+    public interface I { }
+
+    public static final class Final { }
+
+    @Test
+    void prewarm() throws Exception {
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var futures = ProxyBuddy.prewarm(List.of(
+                new ProxyBuddy<>(Target1.class, (proxy, pipe, method, arguments) -> 0),
+                new ProxyBuddy<>(Target2.class, (proxy, pipe, method, arguments) -> 0),
+                new ProxyBuddy<>(Target2.class, (proxy, pipe, method, arguments) -> 0).withInterface(I.class)),
+                executor);
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+            long misses = ProxyClassCache.missCount();
+            var proxy1 = new ProxyBuddy<>(Target1.class, (proxy, pipe, method, arguments) -> 10).createProxy();
+            var proxy2 = new ProxyBuddy<>(Target2.class, (proxy, pipe, method, arguments) -> 20)
+                .withInterface(I.class)
+                .createProxy();
+
+            assertEquals(misses, ProxyClassCache.missCount());
+            assertSame(futures.get(0).get().proxyClass(), proxy1.getClass());
+            assertSame(futures.get(2).get().proxyClass(), proxy2.getClass());
+            assertEquals(10, proxy1.get());
+            assertEquals(20, proxy2.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void prewarmFailure() {
+        var futures = ProxyBuddy.prewarm(List.of(
+            new ProxyBuddy<>(Final.class, (proxy, pipe, method, arguments) -> 0)));
+
+        var exception = assertThrows(ExecutionException.class, () -> futures.get(0).get());
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+    }
+
+}
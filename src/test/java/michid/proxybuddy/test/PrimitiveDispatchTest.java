@@ -0,0 +1,116 @@
+package michid.proxybuddy.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import michid.proxybuddy.ProxyBuddy;
+import michid.proxybuddy.ProxyBuddy.PrimitiveInvocationHandler;
+
+public class PrimitiveDispatchTest {
+
+    public static class Target {
+        private long value;
+
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        public long inc(long a) {
+            return a + 1;
+        }
+
+        public boolean isPositive(short a) {
+            return a > 0;
+        }
+
+        public void set(char value) {
+            this.value = value;
+        }
+
+        public long get() {
+            return value;
+        }
+
+        public String concat(String a, String b) {
+            return a + b;
+        }
+
+        public double half(double a) {
+            return a / 2;
+        }
+    }
+
+    private static class Handler implements PrimitiveInvocationHandler<Target> {
+        private final Target target = new Target();
+        private final List<String> primitiveCalls = new ArrayList<>();
+
+        @Override
+        public long invoke(Target proxy, Method method, long argument0, long argument1) {
+            primitiveCalls.add(method.getName());
+            return switch (method.getName()) {
+                case "add" -> target.add((int) argument0, (int) argument1);
+                case "inc" -> target.inc(argument0);
+                case "isPositive" -> target.isPositive((short) argument0) ? 1 : 0;
+                case "set" -> {
+                    target.set((char) argument0);
+                    yield 0;
+                }
+                case "get" -> target.get();
+                default -> throw new IllegalStateException(method.getName());
+            };
+        }
+
+        @Override
+        public Object invoke(Target proxy, Function<Target, Object> pipe, Method method, Object... arguments) {
+            return pipe.apply(target);
+        }
+    }
+
+    @Test
+    void primitiveDispatch() throws Exception {
+        var handler = new Handler();
+        var proxy = new ProxyBuddy<>(Target.class, handler)
+            .withPrimitiveDispatch()
+            .createProxy();
+
+        assertEquals(3, proxy.add(1, 2));
+        assertEquals(-3, proxy.add(-1, -2));
+        assertEquals(Long.MAX_VALUE, proxy.inc(Long.MAX_VALUE - 1));
+        assertTrue(proxy.isPositive((short) 1));
+        assertFalse(proxy.isPositive((short) -1));
+        proxy.set('x');
+        assertEquals('x', proxy.get());
+        assertEquals(List.of("add", "add", "inc", "isPositive", "isPositive", "set", "get"), handler.primitiveCalls);
+
+        assertEquals("ab", proxy.concat("a", "b"));
+        assertEquals(1.5, proxy.half(3));
+        assertEquals(7, handler.primitiveCalls.size());
+    }
+
+    @Test
+    void primitiveDispatchRequiresPrimitiveHandler() {
+        var proxyBuddy = new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> null)
+            .withPrimitiveDispatch();
+
+        assertThrows(IllegalArgumentException.class, proxyBuddy::createProxy);
+    }
+
+    @Test
+    void rejectInterceptors() {
+        var proxyBuddy = new ProxyBuddy<>(Target.class, new Handler())
+            .withPrimitiveDispatch()
+            .intercept(invocation -> invocation.proceed());
+
+        assertThrows(IllegalArgumentException.class, proxyBuddy::createProxy);
+    }
+
+}
@@ -0,0 +1,106 @@
+package michid.proxybuddy.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import michid.proxybuddy.ProxyBuddy;
+import michid.proxybuddy.ProxyClassCache;
+
+public class ProxyClassCacheTest {
+
+    public static class Target {
+        private final int value;
+
+        public Target() {
+            this(0);
+        }
+
+        public Target(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+    }
+
+    public interface I { }
+
+    @Test
+    void sameShapeReusesClass() throws Exception {
+        var proxy1 = new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> 1).createProxy();
+        long hits = ProxyClassCache.hitCount();
+        var proxy2 = new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> 2).createProxy();
+
+        assertSame(proxy1.getClass(), proxy2.getClass());
+        assertTrue(ProxyClassCache.hitCount() > hits);
+        assertEquals(1, proxy1.getValue());
+        assertEquals(2, proxy2.getValue());
+    }
+
+    @Test
+    void differentShapesGenerateDifferentClasses() throws Exception {
+        var proxy = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 0).createProxy();
+        var withInterface = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 0)
+            .withInterface(I.class)
+            .createProxy();
+        var withConstructor = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 0)
+            .withConstructor(Target.class.getConstructor(int.class), 42)
+            .createProxy();
+
+        assertNotSame(proxy.getClass(), withInterface.getClass());
+        assertNotSame(proxy.getClass(), withConstructor.getClass());
+        assertNotSame(withInterface.getClass(), withConstructor.getClass());
+    }
+
+    @Test
+    void constructorArgumentsAreNotPartOfTheShape() throws Exception {
+        var constructor = Target.class.getConstructor(int.class);
+        var target1 = new Target(1);
+        var target2 = new Target(2);
+
+        var proxy1 = new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> pipe.apply(target1))
+            .withConstructor(constructor, 1)
+            .createProxy();
+        var proxy2 = new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> pipe.apply(target2))
+            .withConstructor(constructor, 2)
+            .createProxy();
+
+        assertSame(proxy1.getClass(), proxy2.getClass());
+        assertEquals(1, proxy1.getValue());
+        assertEquals(2, proxy2.getValue());
+    }
+
+    public static class Concurrent { }
+
+    @Test
+    void concurrentCreationGeneratesOneClass() throws Exception {
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var proxies = new ArrayList<Future<Concurrent>>();
+            Callable<Concurrent> createProxy = () ->
+                new ProxyBuddy<>(Concurrent.class, (proxy, pipe, method, arguments) -> null).createProxy();
+
+            for (int k = 0; k < 64; k++) {
+                proxies.add(executor.submit(createProxy));
+            }
+
+            var proxyClass = proxies.get(0).get().getClass();
+            for (var proxy : proxies) {
+                assertSame(proxyClass, proxy.get().getClass());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
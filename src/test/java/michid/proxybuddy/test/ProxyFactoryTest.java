@@ -0,0 +1,147 @@
+package michid.proxybuddy.test;
+
+import static michid.proxybuddy.ProxyBuddy.isProxy;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import michid.proxybuddy.ProxyBuddy;
+
+public class ProxyFactoryTest {
+
+    public static class Target {
+        private final int value;
+
+        public Target(int value) {
+            if (value == Integer.MIN_VALUE) {
+                throw new OutOfMemoryError();
+            }
+            if (value < 0) {
+                throw new IllegalArgumentException();
+            }
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+    }
+
+    @Test
+    void newInstance() throws Exception {
+        var target1 = new Target(1);
+        var target2 = new Target(2);
+        var factory = new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> null)
+            .withConstructor(Target.class.getConstructor(int.class), 0)
+            .buildFactory();
+
+        var proxy1 = factory.newInstance((proxy, pipe, method, arguments) -> pipe.apply(target1));
+        var proxy2 = factory.newInstance((proxy, pipe, method, arguments) -> pipe.apply(target2));
+
+        assertTrue(isProxy(proxy1));
+        assertTrue(isProxy(proxy2));
+        assertSame(factory.proxyClass(), proxy1.getClass());
+        assertSame(factory.proxyClass(), proxy2.getClass());
+        assertEquals(1, proxy1.getValue());
+        assertEquals(2, proxy2.getValue());
+    }
+
+    @Test
+    void newInstanceWithArguments() throws Exception {
+        var factory = new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> null)
+            .withConstructor(Target.class.getConstructor(int.class), 0)
+            .buildFactory();
+
+        var proxy = factory.newInstance((thisProxy, pipe, method, arguments) -> null, 42);
+        var value = Target.class.getDeclaredField("value");
+        value.setAccessible(true);
+
+        assertEquals(42, value.get(proxy));
+        assertThrows(IllegalArgumentException.class, () ->
+            factory.newInstance((thisProxy, pipe, method, arguments) -> null, "42"));
+        assertThrows(IllegalArgumentException.class, () ->
+            factory.newInstance((thisProxy, pipe, method, arguments) -> null, (Object) null));
+        assertThrows(IllegalArgumentException.class, () ->
+            factory.newInstance((thisProxy, pipe, method, arguments) -> null, 1, 2));
+
+        var ex = assertThrows(InvocationTargetException.class, () ->
+            factory.newInstance((thisProxy, pipe, method, arguments) -> null, -1));
+        assertEquals(IllegalArgumentException.class, ex.getCause().getClass());
+        assertThrows(OutOfMemoryError.class, () ->
+            factory.newInstance((thisProxy, pipe, method, arguments) -> null, Integer.MIN_VALUE));
+    }
+
+    @Test
+    void equalityWitnessAppliesToFactoryInstances() throws Exception {
+        var witness = new Object();
+        var factory = new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> null)
+            .withConstructor(Target.class.getConstructor(int.class), 0)
+            .withProxyCanEqualTarget(witness)
+            .buildFactory();
+
+        var proxy = factory.newInstance((thisProxy, pipe, method, arguments) -> 3);
+
+        assertEquals(3, proxy.getValue());
+        assertEquals(witness.hashCode(), proxy.hashCode());
+    }
+
+    @Test
+    void newInstances() throws Exception {
+        var proxies = new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> null)
+            .withConstructor(Target.class.getConstructor(int.class), 0)
+            .createProxies(1000, index -> (proxy, pipe, method, arguments) -> index);
+
+        assertEquals(1000, proxies.size());
+        for (int k = 0; k < proxies.size(); k++) {
+            assertTrue(isProxy(proxies.get(k)));
+            assertEquals(k, proxies.get(k).getValue());
+        }
+        assertThrows(UnsupportedOperationException.class, () -> proxies.set(0, null));
+    }
+
+    @Test
+    void newInstancesFailing() throws Exception {
+        var proxyBuddy = new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> null)
+            .withConstructor(Target.class.getConstructor(int.class), -1);
+
+        var ex = assertThrows(InvocationTargetException.class, () ->
+            proxyBuddy.createProxies(10, index -> (proxy, pipe, method, arguments) -> index));
+        assertEquals(IllegalArgumentException.class, ex.getCause().getClass());
+
+        var streamEx = assertThrows(UndeclaredThrowableException.class, () ->
+            proxyBuddy.createProxyStream(10, index -> (proxy, pipe, method, arguments) -> index).toArray());
+        assertEquals(InvocationTargetException.class, streamEx.getCause().getClass());
+    }
+
+    @Test
+    void newInstanceStream() throws Exception {
+        var factory = new ProxyBuddy<>(Target.class, (proxy, pipe, method, arguments) -> null)
+            .withConstructor(Target.class.getConstructor(int.class), 0)
+            .buildFactory();
+
+        var values = factory.newInstanceStream(10_000, index -> (proxy, pipe, method, arguments) -> index)
+            .parallel()
+            .mapToInt(Target::getValue)
+            .toArray();
+
+        var expected = new int[10_000];
+        for (int k = 0; k < expected.length; k++) {
+            expected[k] = k;
+        }
+        assertArrayEquals(expected, values);
+
+        var proxies = factory.newInstanceStream(3, index -> (proxy, pipe, method, arguments) -> index)
+            .collect(Collectors.toList());
+        assertEquals(3, proxies.size());
+        assertSame(factory.proxyClass(), proxies.get(2).getClass());
+    }
+
+}
@@ -0,0 +1,107 @@
+package michid.proxybuddy.test;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import michid.proxybuddy.ProxyBuddy;
+import michid.proxybuddy.ProxyMetrics;
+
+public class ProxyMetricsTest {
+
+    public static class Target {
+        public int get() {
+            return 0;
+        }
+
+        public void fail() {
+            throw new IllegalStateException();
+        }
+
+        public String name() {
+            return "target";
+        }
+    }
+
+    @Test
+    void countCalls() throws Exception {
+        var metrics = new ProxyMetrics();
+        var proxy = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> pipe.apply(new Target()))
+            .withMetrics(metrics)
+            .createProxy();
+
+        for (int k = 0; k < 10; k++) {
+            proxy.get();
+        }
+        assertThrows(IllegalStateException.class, proxy::fail);
+
+        var get = metrics.snapshot(Target.class.getMethod("get"));
+        assertEquals(10, get.count());
+        assertEquals(0, get.failures());
+        assertTrue(get.totalNanos() >= get.maxNanos());
+        assertTrue(get.percentileNanos(50) <= get.percentileNanos(100));
+        assertEquals(get.maxNanos(), get.percentileNanos(100));
+
+        var fail = metrics.snapshot(Target.class.getMethod("fail"));
+        assertEquals(1, fail.count());
+        assertEquals(1, fail.failures());
+
+        assertEquals(0, metrics.snapshot(Target.class.getMethod("name")).count());
+        assertEquals(2, metrics.snapshot().size());
+
+        metrics.reset();
+        assertTrue(metrics.snapshot().isEmpty());
+    }
+
+    @Test
+    void sharedRegistry() throws Exception {
+        var metrics = new ProxyMetrics();
+        var delegating = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> null)
+            .withTarget(new Target())
+            .withMetrics(metrics)
+            .createProxy();
+        var routed = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 0)
+            .onMethod(named("name"), (thisProxy, pipe, method, arguments) -> "routed")
+            .withMetrics(metrics)
+            .createProxy();
+
+        assertEquals("target", delegating.name());
+        assertEquals("routed", routed.name());
+        assertEquals(2, metrics.snapshot(Target.class.getMethod("name")).count());
+    }
+
+    @Test
+    void metricsArePartOfShape() throws Exception {
+        var withMetrics = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 0)
+            .withMetrics(new ProxyMetrics())
+            .createProxy();
+        var withoutMetrics = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 0)
+            .createProxy();
+
+        assertNotSame(withMetrics.getClass(), withoutMetrics.getClass());
+    }
+
+    @Test
+    void onlyUserMethods() throws Exception {
+        var metrics = new ProxyMetrics();
+        var proxy = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> 0)
+            .withoutSuperConstructor()
+            .withMetrics(metrics)
+            .createProxy();
+
+        proxy.get();
+        var methods = metrics.snapshot().keySet().stream()
+            .map(Method::getName)
+            .collect(Collectors.toSet());
+        assertEquals(Set.of("get"), methods);
+    }
+
+}
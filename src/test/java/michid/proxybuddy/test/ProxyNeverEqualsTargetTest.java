@@ -145,4 +145,20 @@ public class ProxyNeverEqualsTargetTest {
         assertEquals(proxy2.hashCode(), proxy2.hashCode());
     }
 
+    @Test
+    public void equalityDoesNotReachHandler()
+    throws NoSuchMethodException, InvocationTargetException, IllegalAccessException, InstantiationException {
+        Target target = new Target(1);
+        Target proxy = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> {
+                throw new AssertionError("Unexpected call to " + method);
+            })
+            .withConstructor(Target.class.getConstructor(int.class), 0)
+            .withProxyNeverEqualsTarget(target)
+            .createProxy();
+
+        assertEquals(31 * target.hashCode(), proxy.hashCode());
+        assertTrue(proxy.equals(createProxy(new Target(1))));
+        assertFalse(proxy.equals(target));
+    }
+
 }
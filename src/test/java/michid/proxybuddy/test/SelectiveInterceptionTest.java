@@ -0,0 +1,86 @@
+package michid.proxybuddy.test;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import michid.proxybuddy.ProxyBuddy;
+
+public class SelectiveInterceptionTest {
+
+    public abstract static class Target {
+        public String a() {
+            return "a";
+        }
+
+        public String b() {
+            return "b";
+        }
+
+        public String c() {
+            return "c";
+        }
+
+        public abstract String d();
+    }
+
+    @Test
+    void intercepting() throws Exception {
+        var proxy = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> "proxy")
+            .intercepting(named("a"))
+            .createProxy();
+
+        assertEquals("proxy", proxy.a());
+        assertEquals("b", proxy.b());
+        assertEquals("c", proxy.c());
+        assertEquals("proxy", proxy.d());
+    }
+
+    @Test
+    void passThrough() throws Exception {
+        var proxy = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> "proxy")
+            .passThrough(named("b"))
+            .createProxy();
+
+        assertEquals("proxy", proxy.a());
+        assertEquals("b", proxy.b());
+        assertEquals("proxy", proxy.c());
+        assertEquals("proxy", proxy.d());
+    }
+
+    @Test
+    void combined() throws Exception {
+        var proxy = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> "proxy")
+            .intercepting(named("a").or(named("b")))
+            .passThrough(named("b"))
+            .onMethod(named("c"), (thisProxy, pipe, method, arguments) -> "routed")
+            .createProxy();
+
+        assertEquals("proxy", proxy.a());
+        assertEquals("b", proxy.b());
+        assertEquals("c", proxy.c());
+    }
+
+    @Test
+    void matchersArePartOfShape() throws Exception {
+        var proxy1 = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> "1")
+            .intercepting(named("a"))
+            .createProxy();
+        var proxy2 = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> "2")
+            .intercepting(named("a"))
+            .createProxy();
+        var proxy3 = new ProxyBuddy<>(Target.class, (thisProxy, pipe, method, arguments) -> "3")
+            .intercepting(named("b"))
+            .createProxy();
+
+        assertSame(proxy1.getClass(), proxy2.getClass());
+        assertNotSame(proxy1.getClass(), proxy3.getClass());
+        assertEquals("1", proxy1.a());
+        assertEquals("2", proxy2.a());
+        assertEquals("3", proxy3.b());
+    }
+
+}
@@ -0,0 +1,155 @@
+package michid.proxybuddy.test;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import michid.proxybuddy.ProxyBuddy;
+
+public class SkipConstructorTest {
+    private static final AtomicInteger CONSTRUCTED = new AtomicInteger();
+
+    public static class Expensive {
+        private final int[] cache;
+
+        public Expensive() {
+            CONSTRUCTED.incrementAndGet();
+            cache = new int[1024];
+        }
+
+        public Expensive(int size) {
+            CONSTRUCTED.incrementAndGet();
+            cache = new int[size];
+        }
+
+        public int size() {
+            return cache == null ? -1 : cache.length;
+        }
+
+        public String name() {
+            return "expensive";
+        }
+    }
+
+    public static class Unconstructible {
+        public Unconstructible(String name) {
+            throw new IllegalStateException("Must not be constructed: " + name);
+        }
+
+        public String name() {
+            return "unconstructible";
+        }
+    }
+
+    public interface Greeter {
+        String greet();
+    }
+
+    @Test
+    void skipConstructor() throws Exception {
+        var constructed = CONSTRUCTED.get();
+        var proxy = new ProxyBuddy<>(Expensive.class, (thisProxy, pipe, method, arguments) -> 42)
+            .withoutSuperConstructor()
+            .createProxy();
+
+        assertEquals(constructed, CONSTRUCTED.get());
+        assertTrue(ProxyBuddy.isProxy(proxy));
+        assertEquals(42, proxy.size());
+    }
+
+    @Test
+    void superStateNotInitialized() throws Exception {
+        var proxy = new ProxyBuddy<>(Expensive.class, (thisProxy, pipe, method, arguments) -> pipe.apply(thisProxy))
+            .withoutSuperConstructor()
+            .intercepting(named("name"))
+            .createProxy();
+
+        assertEquals(-1, proxy.size());
+        var cache = Expensive.class.getDeclaredField("cache");
+        cache.setAccessible(true);
+        assertNull(cache.get(proxy));
+    }
+
+    @Test
+    void initializeProxyFields() throws Exception {
+        var constructed = CONSTRUCTED.get();
+        var witness = new Object();
+        var proxy = new ProxyBuddy<>(Expensive.class, (thisProxy, pipe, method, arguments) -> "handler")
+            .withoutSuperConstructor()
+            .withProxyNeverEqualsTarget(witness)
+            .onMethod(named("size"), (thisProxy, pipe, method, arguments) -> 7)
+            .withInterface(Greeter.class, () -> "hello")
+            .intercept(invocation -> "intercepted " + invocation.proceed())
+            .createProxy();
+
+        assertEquals(constructed, CONSTRUCTED.get());
+        assertEquals("intercepted handler", proxy.name());
+        assertEquals(7, proxy.size());
+        assertEquals("hello", ((Greeter) proxy).greet());
+        assertEquals(31 * witness.hashCode(), proxy.hashCode());
+        assertTrue(proxy.equals(proxy));
+    }
+
+    @Test
+    void delegateToTarget() throws Exception {
+        var target = new Expensive(3);
+        var constructed = CONSTRUCTED.get();
+        var proxy = new ProxyBuddy<>(Expensive.class, (thisProxy, pipe, method, arguments) -> null)
+            .withTarget(target)
+            .withoutSuperConstructor()
+            .createProxy();
+
+        assertEquals(3, proxy.size());
+        assertEquals(constructed, CONSTRUCTED.get());
+    }
+
+    @Test
+    void separateProxyClass() throws Exception {
+        var proxyBuddy = new ProxyBuddy<>(Expensive.class, (thisProxy, pipe, method, arguments) -> 0);
+        var proxy1 = proxyBuddy.createProxy();
+        var proxy2 = proxyBuddy.withoutSuperConstructor().createProxy();
+
+        assertNotSame(proxy1.getClass(), proxy2.getClass());
+    }
+
+    @Test
+    void factoryInstances() throws Exception {
+        var constructed = CONSTRUCTED.get();
+        var factory = new ProxyBuddy<>(Expensive.class, (thisProxy, pipe, method, arguments) -> 0)
+            .withoutSuperConstructor()
+            .buildFactory();
+
+        var proxies = factory.newInstances(100, index -> (thisProxy, pipe, method, arguments) -> index);
+        for (int k = 0; k < proxies.size(); k++) {
+            assertEquals(k, proxies.get(k).size());
+        }
+        assertEquals(constructed, CONSTRUCTED.get());
+    }
+
+    @Test
+    void noNoArgumentConstructor() throws Exception {
+        var proxy = new ProxyBuddy<>(Unconstructible.class, (thisProxy, pipe, method, arguments) -> "handler")
+            .withoutSuperConstructor()
+            .createProxy();
+
+        assertTrue(ProxyBuddy.isProxy(proxy));
+        assertEquals("handler", proxy.name());
+    }
+
+    @Test
+    void ignoreConstructor() throws Exception {
+        var proxy = new ProxyBuddy<>(Unconstructible.class, (thisProxy, pipe, method, arguments) -> "handler")
+            .withConstructor(Unconstructible.class.getConstructor(String.class), "fail")
+            .withoutSuperConstructor()
+            .createProxy();
+
+        assertEquals("handler", proxy.name());
+    }
+
+}
@@ -0,0 +1,97 @@
+package michid.proxybuddy.test;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import michid.proxybuddy.ProxyBuddy;
+import michid.proxybuddy.ProxyBuddy.SuperCallInvocationHandler;
+
+public class SuperCallTest {
+
+    public abstract static class Counter {
+        private int count;
+
+        public Counter(int count) {
+            this.count = count;
+        }
+
+        public int add(int value) {
+            return count += value;
+        }
+
+        public abstract String name();
+    }
+
+    @Test
+    void decorateSuperCall() throws Exception {
+        var calls = new ArrayList<String>();
+        var proxy = new ProxyBuddy<>(Counter.class, (SuperCallInvocationHandler<Counter>)
+                (thisProxy, superCall, method, arguments) -> {
+                    calls.add(method.getName());
+                    return superCall == null
+                        ? "abstract"
+                        : superCall.call();
+                })
+            .withConstructor(Counter.class.getConstructor(int.class), 10)
+            .withSuperCall()
+            .createProxy();
+
+        assertEquals(11, proxy.add(1));
+        assertEquals(13, proxy.add(2));
+        assertEquals("abstract", proxy.name());
+        assertEquals(List.of("add", "add", "name"), calls);
+    }
+
+    @Test
+    void abstractMethodsHaveNoSuperCall() throws Exception {
+        var superCalls = new ArrayList<Object>();
+        var proxy = new ProxyBuddy<>(Counter.class, (SuperCallInvocationHandler<Counter>)
+                (thisProxy, superCall, method, arguments) -> {
+                    superCalls.add(superCall);
+                    return "name";
+                })
+            .withConstructor(Counter.class.getConstructor(int.class), 0)
+            .withSuperCall()
+            .intercepting(named("name"))
+            .createProxy();
+
+        assertEquals("name", proxy.name());
+        assertEquals(1, proxy.add(1));
+        assertEquals(1, superCalls.size());
+        assertNull(superCalls.get(0));
+    }
+
+    @Test
+    void requireSuperCallInvocationHandler() throws Exception {
+        var proxyBuddy = new ProxyBuddy<>(Counter.class, (thisProxy, pipe, method, arguments) -> null)
+            .withConstructor(Counter.class.getConstructor(int.class), 0)
+            .withSuperCall();
+
+        assertThrows(IllegalArgumentException.class, proxyBuddy::createProxy);
+    }
+
+    @Test
+    void requireSuperCall() throws Exception {
+        SuperCallInvocationHandler<Counter> handler = (thisProxy, superCall, method, arguments) -> superCall.call();
+        var proxyBuddy = new ProxyBuddy<>(Counter.class, handler)
+            .withConstructor(Counter.class.getConstructor(int.class), 0);
+
+        assertThrows(IllegalArgumentException.class, proxyBuddy::createProxy);
+        var factory = proxyBuddy.withSuperCall().buildFactory();
+        assertEquals(1, factory.newInstance(handler).add(1));
+
+        var plainFactory = new ProxyBuddy<>(Counter.class, (thisProxy, pipe, method, arguments) -> null)
+            .withConstructor(Counter.class.getConstructor(int.class), 0)
+            .buildFactory();
+        assertThrows(IllegalArgumentException.class, () -> plainFactory.newInstance(handler));
+        assertThrows(IllegalArgumentException.class, () -> proxyBuddy.onMethod(named("add"), handler));
+    }
+
+}
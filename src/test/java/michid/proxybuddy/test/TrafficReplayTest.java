@@ -0,0 +1,269 @@
+package michid.proxybuddy.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import michid.proxybuddy.ProxyBuddy;
+import michid.proxybuddy.ProxyReplayer;
+import michid.proxybuddy.TrafficRecorder;
+
+public class TrafficReplayTest {
+
+    public enum Unit { SECONDS, MINUTES }
+
+    public static class Service {
+        private final List<String> calls = new ArrayList<>();
+
+        public int add(int a, long b) {
+            calls.add("add");
+            return a + (int) b;
+        }
+
+        public String concat(String a, char b, Unit unit, double d) {
+            calls.add("concat");
+            return a + b + unit + d;
+        }
+
+        public byte[] bytes(byte[] bytes, List<Integer> list) {
+            calls.add("bytes");
+            return bytes;
+        }
+
+        public Object opaque(Object value) {
+            calls.add("opaque");
+            return new Object();
+        }
+
+        public void fail() {
+            calls.add("fail");
+            throw new IllegalStateException();
+        }
+    }
+
+    public static class Unserializable implements Serializable {
+        private void writeObject(ObjectOutputStream out) {
+            throw new IllegalStateException("Cannot serialize");
+        }
+    }
+
+    public static class Failing implements Serializable {
+        private void writeObject(ObjectOutputStream out) {
+            throw new AssertionError("Cannot serialize");
+        }
+    }
+
+    public record Point(int x, int y) implements Serializable {}
+
+    @TempDir
+    Path directory;
+
+    private static Service record(TrafficRecorder<Service> recorder) throws Exception {
+        return new ProxyBuddy<>(Service.class, recorder)
+            .createProxy();
+    }
+
+    private static TrafficRecorder<Service> createRecorder(Path file, int regionSize, Service target) throws IOException {
+        return TrafficRecorder.create(file, regionSize, (proxy, pipe, method, arguments) -> pipe.apply(target));
+    }
+
+    @Test
+    void recordAndReplay() throws Exception {
+        var file = directory.resolve("traffic");
+        try (var recorder = createRecorder(file, 4096, new Service())) {
+            var proxy = record(recorder);
+            assertEquals(3, proxy.add(1, 2));
+            assertEquals("ax" + "SECONDS" + "0.5", proxy.concat("a", 'x', Unit.SECONDS, 0.5));
+            assertArrayEquals(new byte[] {1, 2}, proxy.bytes(new byte[] {1, 2}, List.of(1, 2)));
+            proxy.opaque(new Object());
+            assertThrows(IllegalStateException.class, proxy::fail);
+            assertEquals(5, recorder.calls());
+        }
+
+        var target = new Service();
+        var report = ProxyReplayer.of(file).replay(target);
+
+        assertEquals(5, report.calls());
+        assertEquals(0, report.mismatches());
+        assertEquals(List.of("add", "concat", "bytes", "opaque", "fail"), target.calls);
+
+        var fail = Service.class.getMethod("fail");
+        assertEquals(1, report.recordedLatencies(fail).failures());
+        assertEquals(1, report.replayedLatencies(fail).failures());
+        assertEquals(5, report.replayedLatencies().size());
+    }
+
+    @Test
+    void detectMismatches() throws Exception {
+        var file = directory.resolve("traffic");
+        try (var recorder = createRecorder(file, 4096, new Service())) {
+            var proxy = record(recorder);
+            proxy.add(1, 2);
+            proxy.add(3, 4);
+            assertThrows(IllegalStateException.class, proxy::fail);
+        }
+
+        var report = ProxyReplayer.of(file).replay(new Service() {
+            @Override
+            public int add(int a, long b) {
+                return a == 1 ? 3 : 0;
+            }
+
+            @Override
+            public void fail() {}
+        });
+
+        assertEquals(3, report.calls());
+        assertEquals(2, report.mismatches());
+    }
+
+    @Test
+    void spanRegions() throws Exception {
+        var file = directory.resolve("traffic");
+        var payload = "x".repeat(100);
+        try (var recorder = createRecorder(file, 128, new Service())) {
+            var proxy = record(recorder);
+            for (int k = 0; k < 100; k++) {
+                proxy.concat(payload, 'y', Unit.MINUTES, k);
+            }
+            proxy.bytes(new byte[1000], List.of());
+        }
+
+        var target = new Service();
+        var report = ProxyReplayer.of(file).replay(target);
+        assertEquals(101, report.calls());
+        assertEquals(0, report.mismatches());
+    }
+
+    @Test
+    void replayAtRecordedSpeed() throws Exception {
+        var file = directory.resolve("traffic");
+        try (var recorder = createRecorder(file, 4096, new Service())) {
+            var proxy = record(recorder);
+            proxy.add(1, 1);
+            Thread.sleep(100);
+            proxy.add(2, 2);
+        }
+
+        assertTrue(ProxyReplayer.of(file).replay(new Service()).elapsedNanos() < TimeUnit.MILLISECONDS.toNanos(100));
+        var report = ProxyReplayer.of(file).atRecordedSpeed().replay(new Service());
+        assertTrue(report.elapsedNanos() >= TimeUnit.MILLISECONDS.toNanos(100), report.toString());
+    }
+
+    @Test
+    void recordConcurrentCalls() throws Exception {
+        var file = directory.resolve("traffic");
+        try (var recorder = createRecorder(file, 1024, new Service() {
+                @Override
+                public int add(int a, long b) {
+                    return a + (int) b;
+                }
+            })) {
+            var proxy = record(recorder);
+            var callers = new ArrayList<CompletableFuture<Void>>();
+            for (int k = 0; k < 4; k++) {
+                callers.add(CompletableFuture.runAsync(() -> {
+                    for (int n = 0; n < 1000; n++) {
+                        proxy.add(n, n);
+                    }
+                }));
+            }
+            CompletableFuture.allOf(callers.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+            assertEquals(4000, recorder.calls());
+            assertTrue(recorder.size() > 4000);
+        }
+
+        assertEquals(4000, ProxyReplayer.of(file).replay(new Service()).calls());
+    }
+
+    @Test
+    void replayUnclosedRecording() throws Exception {
+        var file = directory.resolve("traffic");
+        var recorder = createRecorder(file, 4096, new Service());
+        var proxy = record(recorder);
+        proxy.add(1, 2);
+        proxy.add(3, 4);
+
+        assertEquals(2, ProxyReplayer.of(file).replay(new Service()).calls());
+        recorder.close();
+        proxy.add(5, 6);
+        assertEquals(2, ProxyReplayer.of(file).replay(new Service()).calls());
+    }
+
+    @Test
+    void recordUnserializableValuesByClass() throws Exception {
+        var file = directory.resolve("traffic");
+        try (var recorder = createRecorder(file, 4096, new Service())) {
+            var proxy = record(recorder);
+            assertNotNull(proxy.opaque(new Unserializable()));
+            assertEquals(0, recorder.failures());
+            assertEquals(1, recorder.calls());
+        }
+
+        var target = new Service();
+        assertEquals(1, ProxyReplayer.of(file).replay(target).calls());
+        assertEquals(List.of("opaque"), target.calls);
+    }
+
+    @Test
+    void recordingFailuresDoNotChangeOutcome() throws Exception {
+        var file = directory.resolve("traffic");
+        try (var recorder = createRecorder(file, 4096, new Service())) {
+            var proxy = record(recorder);
+            assertNotNull(proxy.opaque(new Failing()));
+            assertEquals(3, proxy.add(1, 2));
+            assertEquals(1, recorder.failures());
+            assertTrue(recorder.lastFailure() instanceof AssertionError);
+            assertEquals(1, recorder.calls());
+        }
+
+        try (var recorder = TrafficRecorder.<Service>create(directory.resolve("failing"),
+                (proxy, pipe, method, arguments) -> { throw new IllegalArgumentException(); })) {
+            var proxy = record(recorder);
+            assertThrows(IllegalArgumentException.class, () -> proxy.opaque(new Failing()));
+            assertEquals(1, recorder.failures());
+        }
+
+        assertEquals(1, ProxyReplayer.of(file).replay(new Service()).calls());
+    }
+
+    @Test
+    void filterSerializedValues() throws Exception {
+        var file = directory.resolve("traffic");
+        try (var recorder = createRecorder(file, 4096, new Service())) {
+            record(recorder).opaque(new Point(1, 2));
+        }
+
+        assertThrows(InvalidClassException.class, () -> ProxyReplayer.of(file).replay(new Service()));
+        var target = new Service();
+        var report = ProxyReplayer.of(file)
+            .withObjectInputFilter(ObjectInputFilter.Config.createFilter("java.base/*;michid.proxybuddy.test.*;!*"))
+            .replay(target);
+        assertEquals(1, report.calls());
+        assertEquals(List.of("opaque"), target.calls);
+    }
+
+    @Test
+    void rejectInvalidFile() throws Exception {
+        var file = Files.writeString(directory.resolve("traffic"), "not a traffic file");
+        assertThrows(IOException.class, () -> ProxyReplayer.of(file).replay(new Service()));
+    }
+
+}